@@ -0,0 +1,29 @@
+package com.example.bankcards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bankcards.pagination")
+public class PaginationProperties {
+
+    /**
+     * Page size of cursor-paged lists when the client does not ask for one.
+     */
+    private int defaultSize = 10;
+
+    /**
+     * Upper bound for a client-requested page size.
+     */
+    private int maxSize = 100;
+
+    public int resolve(Integer requested) {
+        int max = Math.max(1, maxSize);
+        if (requested == null || requested <= 0) {
+            return Math.min(Math.max(1, defaultSize), max);
+        }
+        return Math.min(requested, max);
+    }
+}
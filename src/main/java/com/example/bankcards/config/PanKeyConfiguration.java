@@ -0,0 +1,30 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.pan_key.EnvironmentPanKeyProvider;
+import com.example.bankcards.util.pan_key.FilePanKeyProvider;
+import com.example.bankcards.util.pan_key.IPanKeyProvider;
+import com.example.bankcards.util.pan_key.PanKeyProperties;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+
+@Configuration
+public class PanKeyConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "bankcards.pan.keys", name = "file")
+    public IPanKeyProvider filePanKeyProvider(PanKeyProperties properties) {
+        return new FilePanKeyProvider(Path.of(properties.getFile()), properties.getKekBase64());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(IPanKeyProvider.class)
+    public IPanKeyProvider environmentPanKeyProvider(Environment environment) {
+        return new EnvironmentPanKeyProvider(environment);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Opt-in per-endpoint cost accounting: the number of SQL statements Hibernate prepares while a
+ * request is handled and the bytes the handling thread allocates. Both are recorded as
+ * distribution summaries tagged with the route pattern ({@code http.server.requests.statements},
+ * {@code http.server.requests.allocated}) and logged at debug level. Statements issued through
+ * {@code JdbcTemplate} bypass Hibernate and are not counted.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "bankcards.request-cost", name = "enabled", havingValue = "true")
+public class RequestCostConfiguration implements WebMvcConfigurer {
+
+    private static final String START_ATTRIBUTE = RequestCostConfiguration.class.getName() + ".start";
+    private static final ThreadLocal<long[]> STATEMENTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final MeterRegistry meterRegistry;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    public RequestCostConfiguration(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (threadMXBean.isThreadAllocatedMemorySupported()) {
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingCustomizer() {
+        StatementInspector inspector = sql -> {
+            STATEMENTS.get()[0]++;
+            return sql;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                request.setAttribute(START_ATTRIBUTE, new long[]{STATEMENTS.get()[0], allocatedBytes()});
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                        Object handler, Exception ex) {
+                if (!(request.getAttribute(START_ATTRIBUTE) instanceof long[] start)) {
+                    return;
+                }
+                long statements = STATEMENTS.get()[0] - start[0];
+                long allocated = allocatedBytes() - start[1];
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+                DistributionSummary.builder("http.server.requests.statements")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri)
+                        .register(meterRegistry)
+                        .record(statements);
+                DistributionSummary.builder("http.server.requests.allocated")
+                        .baseUnit("bytes")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri)
+                        .register(meterRegistry)
+                        .record(allocated);
+                log.debug("{} {} -> {} statements, {} bytes allocated", request.getMethod(), uri, statements, allocated);
+            }
+        });
+    }
+
+    private long allocatedBytes() {
+        return threadMXBean.isThreadAllocatedMemoryEnabled()
+                ? threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId())
+                : 0L;
+    }
+}
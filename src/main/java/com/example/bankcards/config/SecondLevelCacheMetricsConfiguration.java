@@ -0,0 +1,47 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hit ratio per second-level cache region, next to the raw
+ * {@code hibernate.second.level.cache.requests} and {@code hibernate.cache.natural.id.requests}
+ * counters that hibernate-micrometer publishes. Natural-id regions are reported with the
+ * {@code natural-id} kind. Only active together with the cache itself.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class SecondLevelCacheMetricsConfiguration {
+
+    @Bean
+    public MeterBinder secondLevelCacheHitRatio(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            for (String region : statistics.getSecondLevelCacheRegionNames()) {
+                CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+                if (regionStatistics == null) {
+                    continue;
+                }
+                Gauge.builder("hibernate.second.level.cache.hit.ratio", regionStatistics,
+                                SecondLevelCacheMetricsConfiguration::hitRatio)
+                        .tag("region", region)
+                        .tag("kind", region.endsWith("-by-login") || region.endsWith("-by-username")
+                                ? "natural-id" : "entity")
+                        .register(registry);
+            }
+        };
+    }
+
+    private static double hitRatio(CacheRegionStatistics statistics) {
+        long hits = statistics.getHitCount();
+        long requests = hits + statistics.getMissCount();
+        return requests == 0 ? Double.NaN : (double) hits / requests;
+    }
+}
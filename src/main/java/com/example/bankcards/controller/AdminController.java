@@ -1,16 +1,20 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.request.CardBulkCreateRequestDto;
 import com.example.bankcards.dto.request.CardCreateRequestDto;
 import com.example.bankcards.dto.request.CardUpdateRequestDto;
 import com.example.bankcards.dto.request.CreateUserRequestDto;
 import com.example.bankcards.service.IAdminCardService;
+import com.example.bankcards.service.IAdminPanKeyService;
 import com.example.bankcards.service.IAdminUserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @RestController
@@ -20,16 +24,26 @@ public class AdminController {
 
     private final IAdminCardService adminCardService;
     private final IAdminUserService adminUserService;
+    private final IAdminPanKeyService adminPanKeyService;
 
     @PostMapping("/card/create")
     public ResponseEntity<?> createCard(@RequestBody @Valid CardCreateRequestDto cardCreateRequestDto) {
         return adminCardService.createCard(cardCreateRequestDto);
     }
 
+    @PostMapping("/cards/bulk")
+    public ResponseEntity<?> createCards(@RequestBody @Valid CardBulkCreateRequestDto cardBulkCreateRequestDto) {
+        return adminCardService.createCards(cardBulkCreateRequestDto);
+    }
+
     @GetMapping("/cards")
     public ResponseEntity<?> getAllCards(@Parameter(description = "Zero based page index", example = "0")
-                                         @RequestParam(value = "page", defaultValue = "0") Integer page) {
-        return adminCardService.getAllCards(page);
+                                         @RequestParam(value = "page", defaultValue = "0") Integer page,
+                                         @Parameter(description = "Keyset paging: cursor returned as `next` by the previous page; pass it empty (or pass size) to start")
+                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                         @Parameter(description = "Keyset paging: page size, capped by bankcards.pagination.max-size")
+                                         @RequestParam(value = "size", required = false) Integer size) {
+        return adminCardService.getAllCards(page, cursor, size);
     }
 
     @PatchMapping("/card/block/{cardId}")
@@ -63,6 +77,22 @@ public class AdminController {
         return adminCardService.updateCard(cardUpdateRequestDto, cardId);
     }
 
+    @PatchMapping("/card/{cardId}/balance-shards")
+    public ResponseEntity<?> updateBalanceShards(@Parameter(description = "Card identifier", required = true)
+                                                 @PathVariable("cardId") Long cardId,
+                                                 @Parameter(description = "Number of sub-balances, 0 to merge them back", example = "8")
+                                                 @RequestParam("count") Integer count) {
+        return adminCardService.updateBalanceShards(cardId, count);
+    }
+
+    @GetMapping("/card/{cardId}/balance")
+    public ResponseEntity<?> getBalanceAt(@Parameter(description = "Card identifier", required = true)
+                                          @PathVariable("cardId") Long cardId,
+                                          @Parameter(description = "Point in time, ISO-8601", example = "2025-01-31T23:59:59Z", required = true)
+                                          @RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime at) {
+        return adminCardService.getBalanceAt(cardId, at);
+    }
+
     @PostMapping("/user")
     public ResponseEntity<?> addUser(@Parameter(description = "User payload", required = true)
                                      @RequestBody @Valid CreateUserRequestDto createUserRequestDto){
@@ -92,15 +122,27 @@ public class AdminController {
     @GetMapping("/users/{page}")
     public ResponseEntity<?> getUsers(@Parameter(description = "Zero-based page index", example = "0", required = true)
                                       @PathVariable("page") Integer page){
-        return adminUserService.getUsers(page);
+        return adminUserService.getUsers(page, null, null);
+    }
+
+    @GetMapping("/users")
+    public ResponseEntity<?> getUsersByCursor(@Parameter(description = "Cursor returned as `next` by the previous page")
+                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                              @Parameter(description = "Page size, capped by bankcards.pagination.max-size")
+                                              @RequestParam(value = "size", required = false) Integer size) {
+        return adminUserService.getUsers(null, cursor == null ? "" : cursor, size);
     }
 
     @GetMapping("/applications")
     public ResponseEntity<?> getApplications(@Parameter(description = "Zero based page index", example = "0")
                                              @RequestParam(value = "page", defaultValue = "0") Integer page,
                                              @Parameter(description = "Filter by approval status")
-                                             @RequestParam(value = "approved", required = false) Boolean approved) {
-        return adminCardService.getApplications(page, approved);
+                                             @RequestParam(value = "approved", required = false) Boolean approved,
+                                             @Parameter(description = "Keyset paging: cursor returned as `next` by the previous page; pass it empty (or pass size) to start")
+                                             @RequestParam(value = "cursor", required = false) String cursor,
+                                             @Parameter(description = "Keyset paging: page size, capped by bankcards.pagination.max-size")
+                                             @RequestParam(value = "size", required = false) Integer size) {
+        return adminCardService.getApplications(page, approved, cursor, size);
     }
 
     @PatchMapping("/application/{applicationId}/approve")
@@ -108,4 +150,14 @@ public class AdminController {
                                                 @PathVariable("applicationId") UUID applicationId) {
         return adminCardService.approveApplication(applicationId);
     }
+
+    @PostMapping("/pan-keys/reencryption")
+    public ResponseEntity<?> startPanReencryption() {
+        return adminPanKeyService.startReencryption();
+    }
+
+    @GetMapping("/pan-keys/reencryption")
+    public ResponseEntity<?> getPanReencryptionStatus() {
+        return adminPanKeyService.getReencryptionStatus();
+    }
 }
@@ -26,9 +26,13 @@ public class UserController {
     @GetMapping("/cards")
     public ResponseEntity<?> getCards(@Parameter(description = "Zero-based page index", example = "0")
                                       @RequestParam(value = "page", defaultValue = "0") Integer page,
+                                      @Parameter(description = "Keyset paging: cursor returned as `next` by the previous page; pass it empty (or pass size) to start")
+                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                      @Parameter(description = "Keyset paging: page size, capped by bankcards.pagination.max-size")
+                                      @RequestParam(value = "size", required = false) Integer size,
                                       @Parameter(hidden = true)
                                       @AuthenticationPrincipal UserDetails userDetails) {
-        return userCardService.getCards(page, userDetails);
+        return userCardService.getCards(page, cursor, size, userDetails);
     }
 
     @PostMapping("/transfer")
@@ -47,6 +51,18 @@ public class UserController {
         return userCardService.getBalance(cardId, userDetails);
     }
     
+    @GetMapping("/card/{cardId}/transactions")
+    public ResponseEntity<?> getTransactions(@Parameter(description = "Card identifier", required = true)
+                                             @PathVariable("cardId") Long cardId,
+                                             @Parameter(description = "Cursor returned as `next` by the previous page")
+                                             @RequestParam(value = "cursor", required = false) String cursor,
+                                             @Parameter(description = "Page size", example = "20")
+                                             @RequestParam(value = "size", defaultValue = "20") Integer size,
+                                             @Parameter(hidden = true)
+                                             @AuthenticationPrincipal UserDetails userDetails) {
+        return userCardService.getTransactions(cardId, cursor, size, userDetails);
+    }
+
     @PostMapping("/card/{cardId}/block")
     public ResponseEntity<?> requestCardBlock(@Parameter(name = "cardId", description = "Card identifier", required = true)
                                               @PathVariable("cardId") Long cardId,
@@ -0,0 +1,112 @@
+package com.example.bankcards.datasource;
+
+import com.example.bankcards.exception.JwtValidationException;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.JwtTokenType;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured data source with a primary pool plus one pool per read replica.
+ * The exposed {@code dataSource} is a {@link LazyConnectionDataSourceProxy}: it defers fetching
+ * a physical connection until the first statement, by which time a read-only transaction has
+ * called {@code Connection.setReadOnly(true)} and the connection is taken from
+ * {@link ReplicaRoutingDataSource} instead of the primary. Every pool is named and reports
+ * the standard {@code hikaricp.*} metrics tagged with that name.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "bankcards.datasource.read-replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties dataSourceProperties,
+                                                             ReadReplicaProperties properties,
+                                                             MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReadReplicaProperties.Replica> configured = properties.getReplicas();
+        for (int i = 0; i < configured.size(); i++) {
+            String name = "replica-" + (i + 1);
+            replicas.put(name, replicaPool(name, configured.get(i), dataSourceProperties, meterRegistry));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(replicaRoutingDataSource);
+        return proxy;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReadReplicaProperties properties,
+                                                                             JwtService jwtService) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(
+                new ReadYourWritesFilter(properties, Clock.systemUTC(), request -> accessTokenSubject(request, jwtService)));
+        // ahead of the security chain, whose filters may already read through JPA
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * The login of a valid access token. The filter runs before authentication, so the token is
+     * verified here; {@link JwtService#verifyClaims(String)} caches the result for the security
+     * chain.
+     */
+    private static String accessTokenSubject(HttpServletRequest request, JwtService jwtService) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            Claims claims = jwtService.verifyClaims(authHeader.substring(7));
+            return jwtService.extractTokenType(claims) == JwtTokenType.ACCESS ? claims.getSubject() : null;
+        } catch (JwtValidationException ex) {
+            return null;
+        }
+    }
+
+    private static HikariDataSource replicaPool(String name,
+                                                ReadReplicaProperties.Replica replica,
+                                                DataSourceProperties primary,
+                                                MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.determineUsername());
+        dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.determinePassword());
+        dataSource.setDriverClassName(primary.determineDriverClassName());
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setReadOnly(true);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+}
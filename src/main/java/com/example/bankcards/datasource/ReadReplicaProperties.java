@@ -0,0 +1,57 @@
+package com.example.bankcards.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bankcards.datasource.read-replicas")
+public class ReadReplicaProperties {
+
+    /**
+     * Routes read-only transactions to the replicas below; everything else stays on
+     * {@code spring.datasource}.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long a client reads from the primary after a mutating request, so it sees its own
+     * writes despite replication lag.
+     */
+    private Duration stickyWindow = Duration.ofSeconds(5);
+
+    /**
+     * Principals whose sticky window is tracked on the server at once; beyond that entries are
+     * evicted early and those clients fall back to the cookie.
+     */
+    private long maxStickyPrincipals = 100_000;
+
+    /**
+     * Cookie carrying the end of the sticky window between requests, for clients without a
+     * principal and for other instances.
+     */
+    private String cookieName = "bankcards-primary-until";
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+
+        /**
+         * Defaults to the primary's credentials.
+         */
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+}
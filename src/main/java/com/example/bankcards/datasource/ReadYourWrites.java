@@ -0,0 +1,26 @@
+package com.example.bankcards.datasource;
+
+/**
+ * Per-thread flag telling {@link ReplicaRoutingDataSource} that the current request must read
+ * from the primary. Set and cleared by {@link ReadYourWritesFilter}; outside a request, e.g. on
+ * scheduled or background threads, read-only work goes to the replicas.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY.get());
+    }
+
+    static void requirePrimary() {
+        PRIMARY.set(Boolean.TRUE);
+    }
+
+    static void clear() {
+        PRIMARY.remove();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.bankcards.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Keeps a client on the primary for {@code sticky-window} after a mutating request. The
+ * mutating request itself reads from the primary and records the end of the window against its
+ * principal, as resolved by {@code principals}; later requests of the same principal read from
+ * the primary too until then, so e.g. a balance read right after a transfer sees the transfer
+ * even on a lagging replica, whether or not the client keeps cookies. The window is also handed
+ * out as a cookie, which covers unauthenticated requests and other instances behind the same
+ * load balancer, which do not share the map. The cookie is set before the request is handled
+ * because the response may be committed by the time the handler returns.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final Set<String> MUTATING_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final ReadReplicaProperties properties;
+    private final Clock clock;
+    private final Function<HttpServletRequest, String> principals;
+    private final Cache<String, Long> stickyPrincipals;
+
+    /**
+     * @param principals resolves the principal a request acts as, or null when it is anonymous
+     */
+    public ReadYourWritesFilter(ReadReplicaProperties properties,
+                                Clock clock,
+                                Function<HttpServletRequest, String> principals) {
+        this.properties = properties;
+        this.clock = clock;
+        this.principals = principals;
+        this.stickyPrincipals = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getStickyWindow())
+                .maximumSize(properties.getMaxStickyPrincipals())
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long now = clock.millis();
+        String principal = principals.apply(request);
+        if (MUTATING_METHODS.contains(request.getMethod())) {
+            ReadYourWrites.requirePrimary();
+            long until = now + properties.getStickyWindow().toMillis();
+            if (principal != null) {
+                stickyPrincipals.put(principal, until);
+            }
+            response.addCookie(stickyCookie(request, until));
+        } else if (principalStickyUntil(principal) > now || stickyUntil(request) > now) {
+            ReadYourWrites.requirePrimary();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+
+    private long principalStickyUntil(String principal) {
+        if (principal == null) {
+            return 0L;
+        }
+        Long until = stickyPrincipals.getIfPresent(principal);
+        return until != null ? until : 0L;
+    }
+
+    private long stickyUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0L;
+        }
+        for (Cookie cookie : cookies) {
+            if (properties.getCookieName().equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0L;
+                }
+            }
+        }
+        return 0L;
+    }
+
+    private Cookie stickyCookie(HttpServletRequest request, long until) {
+        Cookie cookie = new Cookie(properties.getCookieName(), Long.toString(until));
+        cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+        cookie.setMaxAge((int) Math.max(1, properties.getStickyWindow().toSeconds()));
+        cookie.setHttpOnly(true);
+        return cookie;
+    }
+}
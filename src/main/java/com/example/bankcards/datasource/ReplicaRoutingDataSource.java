@@ -0,0 +1,77 @@
+package com.example.bankcards.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Source of read-only connections: picks the replicas round-robin, or the primary while
+ * {@link ReadYourWrites} asks for it. Primary connections handed out here are marked read-only
+ * so they behave like replica ones; the pool resets the flag on return. Each routing decision
+ * is counted in {@code datasource.read.routing}, tagged with the chosen pool.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaNames;
+    private final Map<String, Counter> routed = new HashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new LinkedHashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+        this.replicas = replicas;
+        this.replicaNames = List.copyOf(replicas.keySet());
+        for (Object name : targets.keySet()) {
+            routed.put((String) name, Counter.builder("datasource.read.routing")
+                    .tag("pool", (String) name)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String key = (String) determineCurrentLookupKey();
+        Connection connection = getResolvedDataSources().get(key).getConnection();
+        if (PRIMARY.equals(key)) {
+            connection.setReadOnly(true);
+        }
+        routed.get(key).increment();
+        return connection;
+    }
+
+    /**
+     * Closes the replica pools; the primary belongs to the caller.
+     */
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaNames.isEmpty() || ReadYourWrites.isPrimaryRequired()) {
+            return PRIMARY;
+        }
+        return replicaNames.get(Math.floorMod(next.getAndIncrement(), replicaNames.size()));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class CardBulkCreateRequestDto {
+
+    public static final int MAX_CARDS = 100_000;
+
+    /**
+     * One card is issued per entry; repeat an owner to issue several cards to them.
+     */
+    @Size(max = MAX_CARDS)
+    private List<UUID> ownerIds;
+
+    /**
+     * Number of unassigned cards; used when {@code ownerIds} is empty.
+     */
+    @Min(1)
+    @Max(MAX_CARDS)
+    private Integer count;
+}
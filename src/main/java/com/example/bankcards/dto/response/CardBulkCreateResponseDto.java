@@ -0,0 +1,19 @@
+package com.example.bankcards.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CardBulkCreateResponseDto {
+
+    private Integer created;
+
+    private List<CardCreateResponseDto> cards;
+}
@@ -2,6 +2,7 @@ package com.example.bankcards.dto.response;
 
 import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.repository.projection.CardSummaryView;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -36,4 +37,15 @@ public class CardResponseDto {
                 .expiryYear(card.getExpiryYear())
                 .build();
     }
+
+    public static CardResponseDto from(CardSummaryView card) {
+        return CardResponseDto.builder()
+                .id(card.getId())
+                .ownerId(card.getOwnerId())
+                .status(card.getStatus())
+                .maskedPan(card.getMaskedPan())
+                .expiryMonth(card.getExpiryMonth())
+                .expiryYear(card.getExpiryYear())
+                .build();
+    }
 }
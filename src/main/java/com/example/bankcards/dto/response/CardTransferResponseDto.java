@@ -5,12 +5,16 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.UUID;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class CardTransferResponseDto {
 
+    private UUID transferId;
+
     private Long fromCardId;
 
     private Long fromBalance;
@@ -0,0 +1,35 @@
+package com.example.bankcards.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Builder
+@AllArgsConstructor
+@Getter
+public class CursorPageResponseDto<T> {
+
+    private List<T> items;
+
+    /**
+     * Cursor for the following page, {@code null} on the last page.
+     */
+    private String next;
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code pageSize + 1}; the extra row only
+     * signals that another page exists, and the cursor is taken from the last row returned.
+     */
+    public static <E, T> CursorPageResponseDto<T> of(List<E> rows, int pageSize,
+                                                     Function<E, T> mapper, Function<E, String> cursorOf) {
+        String next = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            next = cursorOf.apply(rows.get(pageSize - 1));
+        }
+        return new CursorPageResponseDto<>(rows.stream().map(mapper).toList(), next);
+    }
+}
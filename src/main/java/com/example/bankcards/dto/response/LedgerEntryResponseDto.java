@@ -0,0 +1,36 @@
+package com.example.bankcards.dto.response;
+
+import com.example.bankcards.entity.LedgerEntryEntity;
+import com.example.bankcards.entity.enums.LedgerEntryType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Builder
+@AllArgsConstructor
+@Getter
+public class LedgerEntryResponseDto {
+
+    private Long id;
+
+    private UUID transferId;
+
+    private LedgerEntryType type;
+
+    private Long amount;
+
+    private OffsetDateTime createdAt;
+
+    public static LedgerEntryResponseDto from(LedgerEntryEntity entry) {
+        return LedgerEntryResponseDto.builder()
+                .id(entry.getId())
+                .transferId(entry.getTransferId())
+                .type(entry.getEntryType())
+                .amount(entry.getAmount())
+                .createdAt(entry.getCreatedAt())
+                .build();
+    }
+}
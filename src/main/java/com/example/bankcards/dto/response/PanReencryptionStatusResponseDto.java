@@ -0,0 +1,31 @@
+package com.example.bankcards.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.OffsetDateTime;
+
+@Builder
+@AllArgsConstructor
+@Getter
+public class PanReencryptionStatusResponseDto {
+
+    private Long jobId;
+
+    private Integer targetVersion;
+
+    private String status;
+
+    private Long lastCardId;
+
+    private Long processed;
+
+    private Long failed;
+
+    private OffsetDateTime startedAt;
+
+    private OffsetDateTime updatedAt;
+
+    private OffsetDateTime finishedAt;
+}
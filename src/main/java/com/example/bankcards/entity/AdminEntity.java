@@ -6,9 +6,15 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
 @Table(name = "admins")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "admins")
+@NaturalIdCache(region = "admins-by-username")
 @Getter
 @Setter
 @Builder
@@ -20,6 +26,7 @@ public class AdminEntity {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     private String username;
 
     private String password;
@@ -4,6 +4,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.*;
 
 import java.util.UUID;
@@ -14,6 +16,11 @@ import java.util.UUID;
 @Builder
 @Getter
 @Setter
+@Table(name = "applications",
+        indexes = {
+                @Index(name = "idx_applications_card_id_approved", columnList = "card_id, approved"),
+                @Index(name = "idx_applications_approved_id", columnList = "approved, id")
+        })
 public class ApplicationEntity {
 
     @Id
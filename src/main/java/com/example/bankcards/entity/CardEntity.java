@@ -3,26 +3,48 @@ package com.example.bankcards.entity;
 import com.example.bankcards.entity.enums.CardStatus;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.UUID;
 
+/**
+ * Cached read-write in the second-level cache when it is enabled. Balances are also changed by
+ * plain SQL (single-statement transfers, resharding), which evicts the card through
+ * {@link com.example.bankcards.repository.CardCacheEviction}; dynamic updates make sure an entity
+ * loaded before such a change never writes its stale balance back. Those statements bump
+ * {@code version} as well, which orders the writes seen by
+ * {@link com.example.bankcards.service.cache.CardBalanceCache}. Because every transfer bumps it,
+ * services that change a card load it with a pessimistic lock first, so a transfer cannot commit
+ * between their read and the optimistic check on flush.
+ */
 @Entity
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cards")
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Getter
 @Setter
 @Table(name = "cards",
-        indexes = @Index(name = "idx_cards_pan_hash", columnList = "pan_hash"))
+        indexes = {
+                @Index(name = "idx_cards_pan_hash", columnList = "pan_hash"),
+                @Index(name = "idx_cards_owner_id_id", columnList = "owner_id, id")
+        })
 public class CardEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_seq")
+    @SequenceGenerator(name = "cards_seq", sequenceName = "cards_seq", allocationSize = 50)
     private Long id;
 
-    @Column(name = "pan_encrypted", length = 1024, nullable = false)
+    @Column(name = "pan_encrypted", length = 1024)
     private String panEncrypted;
 
+    @Column(name = "pan_ciphertext")
+    private byte[] panCiphertext;
+
     @Column(name = "last4", length = 4, nullable = false)
     private String last4;
 
@@ -38,14 +60,27 @@ public class CardEntity {
     @Column(name = "balance")
     private Long balance = 0L;
 
+    @Builder.Default
+    @Column(name = "balance_shards", nullable = false)
+    private Integer balanceShards = 0;
+
     @Column(name = "expiry_month")
     private Integer expiryMonth;
 
     @Column(name = "expiry_year")
     private Integer expiryYear;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Transient
     public String getMaskedPan() {
         return "**** **** **** " + last4;
     }
+
+    @Transient
+    public boolean isBalanceSharded() {
+        return balanceShards != null && balanceShards > 0;
+    }
 }
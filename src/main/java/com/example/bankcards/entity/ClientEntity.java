@@ -2,6 +2,10 @@ package com.example.bankcards.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.UUID;
 
@@ -12,12 +16,15 @@ import java.util.UUID;
 @NoArgsConstructor
 @Builder
 @Table(name = "clients")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "clients")
+@NaturalIdCache(region = "clients-by-login")
 public class ClientEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID id;
 
+    @NaturalId(mutable = true)
     @Column(nullable = false, unique = true)
     private String login;
 
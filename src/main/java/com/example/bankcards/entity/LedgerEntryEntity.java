@@ -0,0 +1,42 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.entity.enums.LedgerEntryType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Entity
+@Immutable
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "ledger_entries")
+public class LedgerEntryEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "transfer_id")
+    private UUID transferId;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", length = 16, nullable = false)
+    private LedgerEntryType entryType;
+
+    /**
+     * Signed amount: negative for debits, positive for credits and opening balances.
+     */
+    @Column(name = "amount", nullable = false)
+    private Long amount;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private OffsetDateTime createdAt;
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+@Getter
+public class CardTransferException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public CardTransferException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.bankcards.idempotency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * Makes mutating requests carrying an {@code Idempotency-Key} header safe to retry: the first
+ * response is stored and repeats of the same key by the same principal on the same endpoint
+ * get it back instead of executing the operation again. A repeat whose body differs from the
+ * first request's is rejected with 422 rather than answered with a response it did not cause.
+ * The body is buffered for its fingerprint only up to {@code max-request-body-bytes}; a longer
+ * one, declared or read, is rejected with 413 before anything is reserved.
+ * Runs inside the security chain after the JWT filter so the key can be scoped to the
+ * authenticated principal.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyKeyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> MUTATING_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final IdempotencyStore idempotencyStore;
+    private final IdempotencyProperties properties;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || !MUTATING_METHODS.contains(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        String keyHash = hash(authentication.getName(), request.getMethod(), request.getRequestURI(), key);
+        int maxRequestBodyBytes = properties.getMaxRequestBodyBytes();
+        if (request.getContentLengthLong() > maxRequestBodyBytes) {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, tooLarge(maxRequestBodyBytes));
+            return;
+        }
+        // one byte past the limit tells a body that fits from a chunked one that does not
+        byte[] requestBody = request.getInputStream().readNBytes(maxRequestBodyBytes + 1);
+        if (requestBody.length > maxRequestBodyBytes) {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, tooLarge(maxRequestBodyBytes));
+            return;
+        }
+        String requestHash = hash(requestBody);
+
+        IdempotencyStore.Reservation reservation;
+        try {
+            reservation = idempotencyStore.reserve(keyHash);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeError(response, HttpStatus.SERVICE_UNAVAILABLE, "Request interrupted");
+            return;
+        }
+
+        switch (reservation.kind()) {
+            case REPLAY -> {
+                if (requestHash.equals(reservation.response().requestHash())) {
+                    replay(response, reservation.response());
+                } else {
+                    writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                            "Idempotency-Key was already used with a different request body");
+                }
+            }
+            case BUSY -> writeError(response, HttpStatus.CONFLICT,
+                    "Request with this Idempotency-Key is still being processed");
+            case ACQUIRED -> execute(new CachedBodyRequest(request, requestBody), response, filterChain,
+                    keyHash, requestHash);
+        }
+    }
+
+    private void execute(HttpServletRequest request,
+                         HttpServletResponse response,
+                         FilterChain filterChain,
+                         String keyHash,
+                         String requestHash) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            int status = wrapper.getStatus();
+            if (status < 500 && wrapper.getContentSize() <= properties.getMaxBodyBytes()) {
+                idempotencyStore.complete(keyHash,
+                        new StoredResponse(requestHash, status, wrapper.getContentType(),
+                                wrapper.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyStore.release(keyHash);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.body() != null && stored.body().length > 0) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(message);
+    }
+
+    private static String tooLarge(int maxRequestBodyBytes) {
+        return "Requests with an Idempotency-Key must not exceed " + maxRequestBodyBytes + " bytes";
+    }
+
+    private static String hash(String... parts) {
+        MessageDigest digest = sha256();
+        for (String part : parts) {
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String hash(byte[] body) {
+        return HexFormat.of().formatHex(sha256().digest(body));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Hands the body read for the fingerprint on to the rest of the chain.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Asynchronous reads are not supported");
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
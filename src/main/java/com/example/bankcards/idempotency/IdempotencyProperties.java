@@ -0,0 +1,44 @@
+package com.example.bankcards.idempotency;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bankcards.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * How long a completed response is replayed for repeats of the same key.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Lease of an in-progress key; after it lapses another request may take the key over.
+     */
+    private Duration inProgressTimeout = Duration.ofMinutes(5);
+
+    /**
+     * How long a concurrent duplicate waits for the first request before getting 409.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Upper bound of completed responses kept in memory.
+     */
+    private long maxEntries = 10_000;
+
+    /**
+     * Request bodies are read into memory to fingerprint them; larger ones are rejected with 413,
+     * whether they declare a {@code Content-Length} or arrive chunked.
+     */
+    private int maxRequestBodyBytes = 64 * 1024;
+
+    /**
+     * Responses with larger bodies are not stored, so repeats execute again.
+     */
+    private int maxBodyBytes = 1024 * 1024;
+}
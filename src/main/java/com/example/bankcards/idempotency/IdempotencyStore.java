@@ -0,0 +1,177 @@
+package com.example.bankcards.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Two-level store of idempotent responses. Completed responses are served from a bounded,
+ * TTL-evicted in-memory cache; {@code idempotency_keys} backs it across restarts and
+ * instances. Within one instance a duplicate that arrives while the first request is still
+ * running waits on the first request's future; across instances the database row acts as a
+ * lease, and a duplicate seeing another instance's lease is reported as busy.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final int MAX_RESERVE_ATTEMPTS = 3;
+
+    private static final String RESERVE_SQL = """
+            INSERT INTO idempotency_keys (key_hash, status, expires_at)
+            VALUES (:keyHash, 'IN_PROGRESS', :expiresAt)
+            ON CONFLICT (key_hash) DO UPDATE
+                SET status = 'IN_PROGRESS', request_hash = NULL, response_status = NULL, content_type = NULL,
+                    response_body = NULL, expires_at = EXCLUDED.expires_at
+                WHERE idempotency_keys.expires_at < now()
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final IdempotencyProperties properties;
+    private final Cache<String, StoredResponse> completed;
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(NamedParameterJdbcTemplate jdbcTemplate, IdempotencyProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+    }
+
+    public Reservation reserve(String keyHash) throws InterruptedException {
+        for (int attempt = 0; attempt < MAX_RESERVE_ATTEMPTS; attempt++) {
+            StoredResponse cached = completed.getIfPresent(keyHash);
+            if (cached != null) {
+                return Reservation.replay(cached);
+            }
+
+            CompletableFuture<StoredResponse> own = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(keyHash, own);
+            if (running != null) {
+                StoredResponse response = await(running);
+                if (response != null) {
+                    return Reservation.replay(response);
+                }
+                if (running.isDone()) {
+                    continue;
+                }
+                return Reservation.busy();
+            }
+
+            try {
+                if (reserveInDatabase(keyHash)) {
+                    return Reservation.acquired();
+                }
+                StoredResponse stored = loadCompleted(keyHash);
+                if (stored != null) {
+                    completed.put(keyHash, stored);
+                }
+                finishLocally(keyHash, stored);
+                return stored != null ? Reservation.replay(stored) : Reservation.busy();
+            } catch (RuntimeException e) {
+                finishLocally(keyHash, null);
+                throw e;
+            }
+        }
+        return Reservation.busy();
+    }
+
+    public void complete(String keyHash, StoredResponse response) {
+        try {
+            jdbcTemplate.update("""
+                            UPDATE idempotency_keys
+                            SET status = 'COMPLETED', request_hash = :requestHash, response_status = :status,
+                                content_type = :contentType, response_body = :body, expires_at = :expiresAt
+                            WHERE key_hash = :keyHash
+                            """,
+                    new MapSqlParameterSource("keyHash", keyHash)
+                            .addValue("requestHash", response.requestHash())
+                            .addValue("status", response.status())
+                            .addValue("contentType", response.contentType())
+                            .addValue("body", response.body())
+                            .addValue("expiresAt", OffsetDateTime.now().plus(properties.getTtl())));
+            completed.put(keyHash, response);
+        } finally {
+            finishLocally(keyHash, response);
+        }
+    }
+
+    public void release(String keyHash) {
+        try {
+            jdbcTemplate.update("DELETE FROM idempotency_keys WHERE key_hash = :keyHash AND status = 'IN_PROGRESS'",
+                    new MapSqlParameterSource("keyHash", keyHash));
+        } finally {
+            finishLocally(keyHash, null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bankcards.idempotency.cleanup-interval-ms:60000}")
+    public void purgeExpired() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < now()", new MapSqlParameterSource());
+    }
+
+    private boolean reserveInDatabase(String keyHash) {
+        return jdbcTemplate.update(RESERVE_SQL, new MapSqlParameterSource("keyHash", keyHash)
+                .addValue("expiresAt", OffsetDateTime.now().plus(properties.getInProgressTimeout()))) == 1;
+    }
+
+    private StoredResponse loadCompleted(String keyHash) {
+        List<StoredResponse> rows = jdbcTemplate.query("""
+                        SELECT request_hash, response_status, content_type, response_body FROM idempotency_keys
+                        WHERE key_hash = :keyHash AND status = 'COMPLETED' AND expires_at >= now()
+                        """,
+                new MapSqlParameterSource("keyHash", keyHash),
+                (rs, rowNum) -> new StoredResponse(rs.getString("request_hash"), rs.getInt("response_status"),
+                        rs.getString("content_type"), rs.getBytes("response_body")));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) throws InterruptedException {
+        try {
+            return running.get(properties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    private void finishLocally(String keyHash, StoredResponse response) {
+        CompletableFuture<StoredResponse> own = inFlight.remove(keyHash);
+        if (own != null) {
+            own.complete(response);
+        }
+    }
+
+    public record Reservation(Kind kind, StoredResponse response) {
+
+        public enum Kind {
+            ACQUIRED,
+            REPLAY,
+            BUSY
+        }
+
+        static Reservation acquired() {
+            return new Reservation(Kind.ACQUIRED, null);
+        }
+
+        static Reservation replay(StoredResponse response) {
+            return new Reservation(Kind.REPLAY, response);
+        }
+
+        static Reservation busy() {
+            return new Reservation(Kind.BUSY, null);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.idempotency;
+
+/**
+ * @param requestHash fingerprint of the request body that produced the response; a repeat of
+ *                    the key is only replayed when its body has the same fingerprint
+ */
+public record StoredResponse(String requestHash, int status, String contentType, byte[] body) {
+}
@@ -4,12 +4,8 @@ import com.example.bankcards.entity.AdminEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
 @Repository
-public interface AdminEntityRepository extends JpaRepository<AdminEntity, Long> {
-
-    Optional<AdminEntity> findByUsername(String username);
+public interface AdminEntityRepository extends JpaRepository<AdminEntity, Long>, AdminLookupRepository {
 
     boolean existsByUsername(String username);
 }
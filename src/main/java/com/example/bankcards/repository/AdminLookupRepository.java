@@ -0,0 +1,13 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.AdminEntity;
+
+import java.util.Optional;
+
+public interface AdminLookupRepository {
+
+    /**
+     * Loads the admin by its natural id, served from the second-level cache when it is enabled.
+     */
+    Optional<AdminEntity> findByUsername(String username);
+}
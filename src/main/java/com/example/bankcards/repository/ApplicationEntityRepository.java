@@ -1,11 +1,13 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.ApplicationEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -13,5 +15,9 @@ public interface ApplicationEntityRepository extends JpaRepository<ApplicationEn
 
     Page<ApplicationEntity> findAllByApproved(Boolean approved, Pageable pageable);
 
+    List<ApplicationEntity> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    List<ApplicationEntity> findByApprovedAndIdGreaterThanOrderByIdAsc(Boolean approved, UUID id, Limit limit);
+
     boolean existsByCardIdAndApprovedIsFalse(Long cardId);
 }
@@ -0,0 +1,14 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardEntity;
+
+import java.util.List;
+
+public interface CardBatchRepository {
+
+    /**
+     * Persists new cards with JDBC batching, flushing and detaching every batch so the
+     * persistence context stays small regardless of the number of cards.
+     */
+    List<CardEntity> insertAll(List<CardEntity> cards);
+}
@@ -0,0 +1,34 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+class CardBatchRepositoryImpl implements CardBatchRepository {
+
+    /**
+     * Matches {@code hibernate.jdbc.batch_size} and the {@code cards_seq} allocation size.
+     */
+    private static final int FLUSH_SIZE = 50;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public List<CardEntity> insertAll(List<CardEntity> cards) {
+        for (int i = 0; i < cards.size(); i++) {
+            entityManager.persist(cards.get(i));
+            if ((i + 1) % FLUSH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return cards;
+    }
+}
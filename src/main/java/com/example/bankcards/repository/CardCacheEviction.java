@@ -0,0 +1,50 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardEntity;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts cards from the second-level cache after they were changed with plain SQL, which
+ * Hibernate cannot see. Inside a transaction the cards are evicted right away and again after
+ * commit, so a concurrent reader cannot re-cache the pre-commit row for longer than the
+ * transaction lasts. A no-op while the cache is disabled.
+ */
+@Component
+public class CardCacheEviction {
+
+    private final Cache cache;
+
+    public CardCacheEviction(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.getCache();
+    }
+
+    public void evict(Long... cardIds) {
+        evict(List.of(cardIds));
+    }
+
+    public void evict(Collection<Long> cardIds) {
+        evictNow(cardIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Long> ids = List.copyOf(cardIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(ids);
+                }
+            });
+        }
+    }
+
+    private void evictNow(Collection<Long> cardIds) {
+        for (Long cardId : cardIds) {
+            cache.evict(CardEntity.class, cardId);
+        }
+    }
+}
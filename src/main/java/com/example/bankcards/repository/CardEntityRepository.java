@@ -1,18 +1,73 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.repository.projection.CardBalanceView;
+import com.example.bankcards.repository.projection.CardSummaryView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface CardEntityRepository extends JpaRepository<CardEntity, Long> {
+public interface CardEntityRepository extends JpaRepository<CardEntity, Long>, CardBatchRepository {
 
     Page<CardEntity> findByOwnerId(UUID ownerId, Pageable pageable);
 
+    Page<CardSummaryView> findSummariesBy(Pageable pageable);
+
+    Page<CardSummaryView> findSummariesByOwnerId(UUID ownerId, Pageable pageable);
+
+    List<CardSummaryView> findSummariesByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<CardSummaryView> findSummariesByOwnerIdAndIdGreaterThanOrderByIdAsc(UUID ownerId, Long id, Limit limit);
+
+    Optional<CardSummaryView> findSummaryById(Long id);
+
+    Optional<CardBalanceView> findBalanceByIdAndOwnerId(Long id, UUID ownerId);
+
     Optional<CardEntity> findByIdAndOwnerId(Long id, UUID ownerId);
+
+    boolean existsByIdAndOwnerId(Long id, UUID ownerId);
+
+    /**
+     * For read-modify-save of a card outside a transfer: the lock waits for transfers in flight, so
+     * the optimistic {@code version} check on flush cannot trip over a balance they just changed.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000"))
+    @Query("select c from CardEntity c where c.id = :id")
+    Optional<CardEntity> findByIdForUpdate(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000"))
+    @Query("select c from CardEntity c where c.id = :id and c.ownerId = :ownerId")
+    Optional<CardEntity> findByIdAndOwnerIdForUpdate(@Param("id") Long id, @Param("ownerId") UUID ownerId);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000"))
+    @Query("select c from CardEntity c where c.id = :id and c.ownerId = :ownerId")
+    Optional<CardEntity> findByIdAndOwnerIdForShare(@Param("id") Long id, @Param("ownerId") UUID ownerId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000"))
+    @Query("select c from CardEntity c where c.id in :ids order by c.id")
+    List<CardEntity> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("select c.panHash from CardEntity c where c.panHash in :panHashes")
+    List<String> findExistingPanHashes(@Param("panHashes") Collection<String> panHashes);
+
+    @Query("select c.id from CardEntity c where c.id in :ids and c.balanceShards > 0")
+    List<Long> findShardedIdsIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,20 +1,32 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.ClientEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface ClientEntityRepository extends JpaRepository<ClientEntity, Long> {
+public interface ClientEntityRepository extends JpaRepository<ClientEntity, Long>, ClientLookupRepository {
 
     boolean existsClientEntityById(UUID id);
 
     void deleteClientEntityById(UUID id);
 
-    Optional<ClientEntity> findByLogin(String login);
+    long countByIdIn(Collection<UUID> ids);
 
-    Optional<ClientEntity> getClientEntityById(UUID id);
+    List<ClientEntity> findAllByOrderByLoginAscIdAsc(Limit limit);
+
+    @Query("""
+            select c from ClientEntity c
+            where c.login >= :login
+              and (c.login > :login or c.id > :id)
+            order by c.login asc, c.id asc
+            """)
+    List<ClientEntity> findByLoginAfter(@Param("login") String login, @Param("id") UUID id, Limit limit);
 }
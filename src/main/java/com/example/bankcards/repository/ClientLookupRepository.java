@@ -0,0 +1,21 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.ClientEntity;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ClientLookupRepository {
+
+    /**
+     * Loads the client by its natural id, so with the second-level cache enabled repeated
+     * lookups of the same login are served from the natural-id and entity caches.
+     */
+    Optional<ClientEntity> findByLogin(String login);
+
+    /**
+     * Loads the client by primary key through the persistence context and the second-level
+     * cache, unlike a derived query.
+     */
+    Optional<ClientEntity> getClientEntityById(UUID id);
+}
@@ -0,0 +1,33 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.ClientEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+class ClientLookupRepositoryImpl implements ClientLookupRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ClientEntity> findByLogin(String login) {
+        if (login == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(ClientEntity.class)
+                .loadOptional(login);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ClientEntity> getClientEntityById(UUID id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(entityManager.find(ClientEntity.class, id));
+    }
+}
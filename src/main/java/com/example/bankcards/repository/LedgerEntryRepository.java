@@ -0,0 +1,37 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.LedgerEntryEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntryEntity, Long> {
+
+    @Query("select coalesce(sum(e.amount), 0) from LedgerEntryEntity e where e.cardId = :cardId and e.createdAt <= :at")
+    long sumAmountByCardIdAt(@Param("cardId") Long cardId, @Param("at") OffsetDateTime at);
+
+    @Query("select e from LedgerEntryEntity e where e.cardId = :cardId order by e.createdAt desc, e.id desc")
+    List<LedgerEntryEntity> findLatestByCardId(@Param("cardId") Long cardId, Limit limit);
+
+    /**
+     * Seeks past {@code (createdAt, id)}; the redundant {@code createdAt <=} bound lets the
+     * planner start the index range scan at the cursor instead of filtering from the top.
+     */
+    @Query("""
+            select e from LedgerEntryEntity e
+            where e.cardId = :cardId
+              and e.createdAt <= :createdAt
+              and (e.createdAt < :createdAt or e.id < :id)
+            order by e.createdAt desc, e.id desc
+            """)
+    List<LedgerEntryEntity> findByCardIdBefore(@Param("cardId") Long cardId,
+                                               @Param("createdAt") OffsetDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Limit limit);
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.entity.enums.CardStatus;
+import lombok.Value;
+
+@Value
+public class CardBalanceView {
+
+    Long id;
+
+    Long balance;
+
+    Integer balanceShards;
+
+    CardStatus status;
+
+    Long version;
+
+    public boolean isBalanceSharded() {
+        return balanceShards != null && balanceShards > 0;
+    }
+}
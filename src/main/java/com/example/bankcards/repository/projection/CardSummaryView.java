@@ -0,0 +1,31 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.entity.enums.CardStatus;
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * Columns needed to list a card. Repository methods returning it select only these into the
+ * constructor, so list reads neither fetch the encrypted PAN nor register managed entities, and
+ * unlike an interface projection each row costs one small object rather than a proxy and a map.
+ */
+@Value
+public class CardSummaryView {
+
+    Long id;
+
+    UUID ownerId;
+
+    CardStatus status;
+
+    String last4;
+
+    Integer expiryMonth;
+
+    Integer expiryYear;
+
+    public String getMaskedPan() {
+        return "**** **** **** " + last4;
+    }
+}
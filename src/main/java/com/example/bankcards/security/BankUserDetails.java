@@ -0,0 +1,26 @@
+package com.example.bankcards.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Principal resolved from {@code admins} or {@code clients}. Carries the client identifier
+ * (null for administrators) so that cached principals can be invalidated by id.
+ */
+@Getter
+public class BankUserDetails extends User {
+
+    private final UUID clientId;
+
+    public BankUserDetails(String username,
+                           String password,
+                           Collection<? extends GrantedAuthority> authorities,
+                           UUID clientId) {
+        super(username, password, authorities);
+        this.clientId = clientId;
+    }
+}
@@ -2,10 +2,11 @@ package com.example.bankcards.security;
 
 import com.example.bankcards.entity.AdminEntity;
 import com.example.bankcards.entity.ClientEntity;
+import com.example.bankcards.entity.enums.RoleType;
 import com.example.bankcards.repository.AdminEntityRepository;
 import com.example.bankcards.repository.ClientEntityRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -27,17 +28,31 @@ public class CustomUserDetailsService implements UserDetailsService {
                         .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username)));
     }
 
+    /**
+     * Resolves the principal from the single table matching the role the token was issued for,
+     * instead of probing admins before clients.
+     */
+    public UserDetails loadUserByUsernameAndRole(String username, RoleType role) throws UsernameNotFoundException {
+        if (role == null) {
+            return loadUserByUsername(username);
+        }
+        return switch (role) {
+            case ADMIN -> adminRepository.findByUsername(username)
+                    .map(this::mapAdmin)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+            case USER -> clientRepository.findByLogin(username)
+                    .map(this::mapClient)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        };
+    }
+
     private UserDetails mapAdmin(AdminEntity admin) {
-        return User.withUsername(admin.getUsername())
-                .password(admin.getPassword())
-                .roles("ADMIN")
-                .build();
+        return new BankUserDetails(admin.getUsername(), admin.getPassword(),
+                AuthorityUtils.createAuthorityList("ROLE_ADMIN"), null);
     }
 
     private UserDetails mapClient(ClientEntity client) {
-        return User.withUsername(client.getLogin())
-                .password(client.getPassword())
-                .roles("USER")
-                .build();
+        return new BankUserDetails(client.getLogin(), client.getPassword(),
+                AuthorityUtils.createAuthorityList("ROLE_USER"), client.getId());
     }
 }
@@ -10,19 +10,19 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -37,7 +37,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = authHeader.substring(7);
 
         try {
-            Claims claims = jwtService.parseClaims(token);
+            Claims claims = jwtService.verifyClaims(token);
             if (jwtService.extractTokenType(claims) != JwtTokenType.ACCESS) {
                 filterChain.doFilter(request, response);
                 return;
@@ -46,8 +46,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String username = claims.getSubject();
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtService.isTokenValid(token, userDetails, JwtTokenType.ACCESS)) {
+                UserDetails userDetails = principalCache.load(username, jwtService.extractRole(claims));
+                if (jwtService.isTokenValid(claims, userDetails, JwtTokenType.ACCESS)
+                        && matchesClient(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authenticationToken =
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -60,4 +61,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * A token issued to a client that has since been replaced by another client with the same login
+     * must not authenticate as the new one.
+     */
+    private boolean matchesClient(Claims claims, UserDetails userDetails) {
+        UUID clientId = jwtService.extractClientId(claims);
+        if (clientId == null || !(userDetails instanceof BankUserDetails bankUser)) {
+            return true;
+        }
+        return clientId.equals(bankUser.getClientId());
+    }
 }
@@ -16,4 +16,15 @@ public class JwtProperties {
     private long refreshTokenTtl;
 
     private String issuer;
+
+    private VerifiedCache verifiedCache = new VerifiedCache();
+
+    @Getter
+    @Setter
+    public static class VerifiedCache {
+
+        private boolean enabled = true;
+
+        private long maxSize = 10_000;
+    }
 }
@@ -5,19 +5,30 @@ import com.example.bankcards.exception.JwtValidationException;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @RequiredArgsConstructor
@@ -25,32 +36,56 @@ public class JwtService {
 
     public static final String ROLE_CLAIM = "role";
     public static final String TOKEN_TYPE_CLAIM = "token_type";
+    public static final String CLIENT_ID_CLAIM = "client_id";
 
     private final JwtProperties properties;
 
     private Key signingKey;
 
+    private JwtParser parser;
+
+    /**
+     * Claims of tokens whose signature has already been checked, keyed by SHA-256 of the token
+     * and kept until the token expires. Null when disabled.
+     */
+    private Cache<String, Claims> verifiedClaims;
+
     @PostConstruct
     void initKey() {
         byte[] keyBytes = Decoders.BASE64.decode(properties.getSecret());
         this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parser()
+                .setSigningKey(signingKey)
+                .build();
+
+        JwtProperties.VerifiedCache cacheProperties = properties.getVerifiedCache();
+        if (cacheProperties.isEnabled()) {
+            this.verifiedClaims = Caffeine.newBuilder()
+                    .maximumSize(cacheProperties.getMaxSize())
+                    .expireAfter(new UntilExpiration())
+                    .build();
+        }
     }
 
     public String generateAccessToken(String subject, RoleType role) {
-        return buildToken(subject, role, JwtTokenType.ACCESS, properties.getAccessTokenTtl());
+        return generateAccessToken(subject, role, null);
+    }
+
+    /**
+     * Access token for a client also carries the client id, so user endpoints can scope queries
+     * by owner without looking the client up by login.
+     */
+    public String generateAccessToken(String subject, RoleType role, UUID clientId) {
+        return buildToken(subject, role, clientId, JwtTokenType.ACCESS, properties.getAccessTokenTtl());
     }
 
     public String generateRefreshToken(String subject, RoleType role) {
-        return buildToken(subject, role, JwtTokenType.REFRESH, properties.getRefreshTokenTtl());
+        return buildToken(subject, role, null, JwtTokenType.REFRESH, properties.getRefreshTokenTtl());
     }
 
     public Claims parseClaims(String token) {
         try {
-            return Jwts.parser()
-                    .setSigningKey(signingKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException ex) {
             return ex.getClaims();
         } catch (JwtException | IllegalArgumentException ex) {
@@ -58,8 +93,35 @@ public class JwtService {
         }
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails, JwtTokenType expectedType) {
+    /**
+     * Same as {@link #parseClaims(String)}, but serves repeat presentations of a still valid token
+     * from the verified-claims cache instead of checking the signature again.
+     */
+    public Claims verifyClaims(String token) {
+        if (verifiedClaims == null) {
+            return parseClaims(token);
+        }
+        String key = hash(token);
+        Claims cached = verifiedClaims.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
         Claims claims = parseClaims(token);
+        if (claims.getExpiration() != null && claims.getExpiration().after(new Date())) {
+            verifiedClaims.put(key, claims);
+        }
+        return claims;
+    }
+
+    public boolean isTokenValid(String token, UserDetails userDetails, JwtTokenType expectedType) {
+        return isTokenValid(parseClaims(token), userDetails, expectedType);
+    }
+
+    /**
+     * Validates claims that were already obtained from {@link #parseClaims(String)} or
+     * {@link #verifyClaims(String)}, so the token is not parsed twice.
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails, JwtTokenType expectedType) {
         String username = claims.getSubject();
         if (username == null || !username.equals(userDetails.getUsername())) {
             return false;
@@ -89,6 +151,21 @@ public class JwtService {
         return JwtTokenType.valueOf(tokenTypeValue);
     }
 
+    /**
+     * Client id embedded in the token, or null for admin tokens and tokens issued before the claim existed.
+     */
+    public UUID extractClientId(Claims claims) {
+        String clientId = claims.get(CLIENT_ID_CLAIM, String.class);
+        if (clientId == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(clientId);
+        } catch (IllegalArgumentException ex) {
+            throw new JwtValidationException("Token contains malformed client id", ex);
+        }
+    }
+
     public long getAccessTokenTtl() {
         return properties.getAccessTokenTtl();
     }
@@ -97,21 +174,53 @@ public class JwtService {
         return properties.getRefreshTokenTtl();
     }
 
-    private String buildToken(String subject, RoleType role, JwtTokenType tokenType, long ttlSeconds) {
+    private String buildToken(String subject, RoleType role, UUID clientId, JwtTokenType tokenType, long ttlSeconds) {
         Instant now = Instant.now();
         Date issuedAt = Date.from(now);
         Date expiresAt = Date.from(now.plusSeconds(ttlSeconds));
 
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLE_CLAIM, role.name());
+        claims.put(TOKEN_TYPE_CLAIM, tokenType.name());
+        if (clientId != null) {
+            claims.put(CLIENT_ID_CLAIM, clientId.toString());
+        }
+
         return Jwts.builder()
                 .subject(subject)
                 .issuer(properties.getIssuer())
                 .issuedAt(issuedAt)
                 .expiration(expiresAt)
-                .claims(Map.of(
-                        ROLE_CLAIM, role.name(),
-                        TOKEN_TYPE_CLAIM, tokenType.name()
-                ))
+                .claims(claims)
                 .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class UntilExpiration implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,78 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.enums.RoleType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Size- and time-bounded cache of principals resolved by {@link JwtAuthenticationFilter}.
+ * Local changes to clients invalidate entries immediately and, inside a transaction, again once
+ * it completes, so a request that resolved the principal before the commit cannot leave the old
+ * one cached; the TTL bounds how long changes made elsewhere take to be picked up. Hit/miss counters are published as {@code cache.*}
+ * meters with {@code cache=principals}.
+ */
+@Component
+public class PrincipalCache {
+
+    private final CustomUserDetailsService userDetailsService;
+    private final boolean enabled;
+    private final Cache<Key, UserDetails> cache;
+
+    public PrincipalCache(CustomUserDetailsService userDetailsService,
+                          PrincipalCacheProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.userDetailsService = userDetailsService;
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    public UserDetails load(String username, RoleType role) {
+        if (!enabled) {
+            return userDetailsService.loadUserByUsernameAndRole(username, role);
+        }
+        return cache.get(new Key(username, role),
+                key -> userDetailsService.loadUserByUsernameAndRole(key.username(), key.role()));
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            cache.asMap().keySet().removeIf(key -> username.equals(key.username()));
+        }
+    }
+
+    public void invalidateClient(UUID clientId) {
+        if (clientId == null) {
+            return;
+        }
+        invalidateClientNow(clientId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateClientNow(clientId);
+                }
+            });
+        }
+    }
+
+    private void invalidateClientNow(UUID clientId) {
+        cache.asMap().values().removeIf(details ->
+                details instanceof BankUserDetails bankUser && clientId.equals(bankUser.getClientId()));
+    }
+
+    private record Key(String username, RoleType role) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "security.principal-cache")
+public class PrincipalCacheProperties {
+
+    private boolean enabled = true;
+
+    private long maxSize = 10_000;
+
+    /**
+     * Upper bound on how long a change made elsewhere (another instance, direct SQL) stays unnoticed.
+     */
+    private Duration ttl = Duration.ofSeconds(60);
+}
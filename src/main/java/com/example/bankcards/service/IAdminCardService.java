@@ -1,15 +1,19 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.request.CardBulkCreateRequestDto;
 import com.example.bankcards.dto.request.CardCreateRequestDto;
 import com.example.bankcards.dto.request.CardUpdateRequestDto;
 import org.springframework.http.ResponseEntity;
 
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 public interface IAdminCardService {
 
     ResponseEntity<?> createCard(CardCreateRequestDto cardCreateRequestDto);
 
+    ResponseEntity<?> createCards(CardBulkCreateRequestDto cardBulkCreateRequestDto);
+
     ResponseEntity<?> deleteCard(Long id);
 
     ResponseEntity<?> updateCard(CardUpdateRequestDto cardUpdateRequestDto, Long id);
@@ -20,9 +24,13 @@ public interface IAdminCardService {
 
     ResponseEntity<?> getCard(Long id);
 
-    ResponseEntity<?> getAllCards(Integer page);
+    ResponseEntity<?> updateBalanceShards(Long cardId, Integer shards);
+
+    ResponseEntity<?> getBalanceAt(Long cardId, OffsetDateTime at);
+
+    ResponseEntity<?> getAllCards(Integer page, String cursor, Integer size);
 
     ResponseEntity<?> approveApplication(UUID applicationId);
 
-    ResponseEntity<?> getApplications(Integer page, Boolean approved);
+    ResponseEntity<?> getApplications(Integer page, Boolean approved, String cursor, Integer size);
 }
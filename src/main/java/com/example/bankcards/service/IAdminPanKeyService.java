@@ -0,0 +1,10 @@
+package com.example.bankcards.service;
+
+import org.springframework.http.ResponseEntity;
+
+public interface IAdminPanKeyService {
+
+    ResponseEntity<?> startReencryption();
+
+    ResponseEntity<?> getReencryptionStatus();
+}
@@ -15,6 +15,6 @@ public interface IAdminUserService {
 
     ResponseEntity<?> getUser(UUID id);
 
-    ResponseEntity<?> getUsers(Integer page);
+    ResponseEntity<?> getUsers(Integer page, String cursor, Integer size);
 
 }
@@ -6,7 +6,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 public interface IUserCardService {
 
-    ResponseEntity<?> getCards(Integer page, UserDetails userDetails);
+    ResponseEntity<?> getCards(Integer page, String cursor, Integer size, UserDetails userDetails);
 
     ResponseEntity<?> requestCardBlock(Long cardId, UserDetails userDetails);
 
@@ -14,4 +14,6 @@ public interface IUserCardService {
 
     ResponseEntity<?> getBalance(Long cardId, UserDetails userDetails);
 
+    ResponseEntity<?> getTransactions(Long cardId, String cursor, Integer size, UserDetails userDetails);
+
 }
@@ -0,0 +1,129 @@
+package com.example.bankcards.service.cache;
+
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.util.OffHeapBalanceTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Write-through cache behind {@code GET /user/card/{cardId}/balance}, held in an
+ * {@link OffHeapBalanceTable} keyed by card id. Every path that changes a card's balance,
+ * status or owner records the committed row, version included, once its transaction commits;
+ * reads that miss load the row and record it too. The version carried by each write keeps a
+ * slow or stale writer from overwriting a newer entry. Cards with a sharded balance and deleted
+ * cards stay in the table only as markers that always miss. An entry older than the TTL is never
+ * served and its slot goes to the next card that finds no free one, so cards nobody reads any more
+ * do not pin the table. A hit costs no allocation and no query; lookups are counted in
+ * {@code card.balance.cache.requests}.
+ */
+@Component
+public class CardBalanceCache {
+
+    public static final long MISS = Long.MIN_VALUE;
+
+    private static final int UNCACHEABLE = -1;
+    private static final ThreadLocal<OffHeapBalanceTable.Entry> ENTRY =
+            ThreadLocal.withInitial(OffHeapBalanceTable.Entry::new);
+
+    private final OffHeapBalanceTable table;
+    private final long ttlNanos;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter rejected;
+
+    public CardBalanceCache(CardBalanceCacheProperties properties, MeterRegistry meterRegistry) {
+        this.ttlNanos = properties.getTtl().toNanos();
+        this.table = properties.isEnabled() ? new OffHeapBalanceTable(properties.getCapacity(), ttlNanos) : null;
+        this.hits = Counter.builder("card.balance.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("card.balance.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.rejected = Counter.builder("card.balance.cache.rejected").register(meterRegistry);
+        Gauge.builder("card.balance.cache.entries", this,
+                cache -> cache.table == null ? 0 : cache.table.size()).register(meterRegistry);
+    }
+
+    /**
+     * @return the cached balance, or {@link #MISS} when the card is not cached, its entry has
+     * expired, it belongs to someone else or its balance is sharded
+     */
+    public long balance(long cardId, UUID ownerId) {
+        if (table == null) {
+            return MISS;
+        }
+        OffHeapBalanceTable.Entry entry = ENTRY.get();
+        if (table.read(cardId, entry)
+                && entry.status != UNCACHEABLE
+                && entry.ownerMostSigBits == ownerId.getMostSignificantBits()
+                && entry.ownerLeastSigBits == ownerId.getLeastSignificantBits()
+                && System.nanoTime() - entry.stamp < ttlNanos) {
+            hits.increment();
+            return entry.balance;
+        }
+        misses.increment();
+        return MISS;
+    }
+
+    /**
+     * Records a row as read from the database. Ignored when a newer version is already cached.
+     */
+    public void record(Long cardId, UUID ownerId, Long balance, CardStatus status, boolean sharded, Long version) {
+        if (table == null || cardId == null) {
+            return;
+        }
+        boolean cacheable = ownerId != null && !sharded;
+        boolean stored = table.put(cardId,
+                cacheable ? ownerId.getMostSignificantBits() : 0L,
+                cacheable ? ownerId.getLeastSignificantBits() : 0L,
+                balance == null ? 0L : balance,
+                cacheable ? statusCode(status) : UNCACHEABLE,
+                version == null ? 0L : version,
+                System.nanoTime());
+        if (!stored) {
+            rejected.increment();
+        }
+    }
+
+    /**
+     * Records the card as it stands when the surrounding transaction commits, i.e. after the
+     * flush has bumped its version; right away outside a transaction.
+     */
+    public void recordAfterCommit(CardEntity card) {
+        afterCommit(() -> record(card.getId(), card.getOwnerId(), card.getBalance(), card.getStatus(),
+                card.isBalanceSharded(), card.getVersion()));
+    }
+
+    public void recordAfterCommit(Long cardId, UUID ownerId, Long balance, CardStatus status, boolean sharded,
+                                  Long version) {
+        afterCommit(() -> record(cardId, ownerId, balance, status, sharded, version));
+    }
+
+    /**
+     * Turns the card's entry into a marker that outranks every version still in flight.
+     */
+    public void removeAfterCommit(Long cardId) {
+        afterCommit(() -> record(cardId, null, 0L, null, true, Long.MAX_VALUE));
+    }
+
+    private static int statusCode(CardStatus status) {
+        return status == null ? 0 : status.ordinal() + 1;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.service.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bankcards.balance-cache")
+public class CardBalanceCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Cards the table has room for, rounded up to a power of two; every slot takes 64 bytes
+     * of direct memory. Cards beyond it are served from the database.
+     */
+    private int capacity = 1 << 18;
+
+    /**
+     * Upper bound on how long a change made elsewhere (another instance, manual SQL) stays
+     * unnoticed; changes committed by this instance are visible right away.
+     */
+    private Duration ttl = Duration.ofSeconds(5);
+}
@@ -0,0 +1,132 @@
+package com.example.bankcards.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Pages of {@code GET /user/cards}, grouped per owner so that a card mutation drops exactly the
+ * pages of the owners it touched. Pages are single-flight: concurrent requests for a page that
+ * is not cached yet wait for the one load in progress instead of querying themselves. Owners
+ * are invalidated right away and again when the surrounding transaction completes, so a load
+ * racing with an uncommitted change cannot outlive it. A page that is going to be cached is
+ * loaded in a new read-write transaction, which keeps it on the primary when read replicas are
+ * enabled: a lagging replica would otherwise pin a stale page for the whole TTL, long after
+ * the invalidation that preceded the load. Owner entries are published as
+ * {@code cache.*} meters with {@code cache=card-lists}; page lookups are counted in
+ * {@code card.list.cache.requests}.
+ */
+@Component
+public class OwnerCardListCache {
+
+    private final boolean enabled;
+    private final int maxPagesPerOwner;
+    private final Cache<UUID, ConcurrentMap<PageKey, CompletableFuture<Object>>> owners;
+    private final Counter hits;
+    private final Counter misses;
+    private final TransactionTemplate primaryLoad;
+
+    public OwnerCardListCache(OwnerCardListCacheProperties properties,
+                              MeterRegistry meterRegistry,
+                              PlatformTransactionManager transactionManager) {
+        this.enabled = properties.isEnabled();
+        this.maxPagesPerOwner = properties.getMaxPagesPerOwner();
+        this.owners = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxOwners())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, owners, "card-lists");
+        this.hits = Counter.builder("card.list.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("card.list.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.primaryLoad = new TransactionTemplate(transactionManager);
+        this.primaryLoad.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Returns the cached page, joins a load already in progress, or loads it on this thread.
+     * A failed load is not cached; its waiters see the same exception. Loads that are cached
+     * run in their own transaction, so callers should not hold one open around this call.
+     */
+    public Object get(UUID ownerId, PageKey page, Supplier<?> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        ConcurrentMap<PageKey, CompletableFuture<Object>> pages =
+                owners.get(ownerId, key -> new ConcurrentHashMap<>());
+        CompletableFuture<Object> cached = pages.get(page);
+        if (cached == null && pages.size() >= maxPagesPerOwner) {
+            misses.increment();
+            return loader.get();
+        }
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        if (cached == null) {
+            cached = pages.putIfAbsent(page, created);
+        }
+        if (cached != null) {
+            hits.increment();
+            try {
+                return cached.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        misses.increment();
+        try {
+            Object loaded = primaryLoad.execute(status -> loader.get());
+            created.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            pages.remove(page, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate(UUID... ownerIds) {
+        invalidate(Arrays.asList(ownerIds));
+    }
+
+    public void invalidate(Collection<UUID> ownerIds) {
+        List<UUID> affected = ownerIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (affected.isEmpty()) {
+            return;
+        }
+        owners.invalidateAll(affected);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    owners.invalidateAll(affected);
+                }
+            });
+        }
+    }
+
+    /**
+     * One page of an owner's list: an offset page ({@code keyset == false}, {@code position} is
+     * the page number) or a keyset page starting after card id {@code position}.
+     */
+    public record PageKey(boolean keyset, long position, int size) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bankcards.service.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bankcards.card-list-cache")
+public class OwnerCardListCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Owners whose pages are kept; the least recently used owner is dropped first.
+     */
+    private long maxOwners = 10_000;
+
+    /**
+     * Further pages of an owner are served uncached.
+     */
+    private int maxPagesPerOwner = 16;
+
+    /**
+     * Upper bound on how long a change made elsewhere (another instance, direct SQL, a read
+     * served by a lagging replica) stays unnoticed.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+}
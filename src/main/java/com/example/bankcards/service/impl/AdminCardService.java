@@ -1,43 +1,74 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.config.PaginationProperties;
+import com.example.bankcards.dto.request.CardBulkCreateRequestDto;
 import com.example.bankcards.dto.request.CardCreateRequestDto;
 import com.example.bankcards.dto.request.CardUpdateRequestDto;
 import com.example.bankcards.dto.response.ApplicationResponseDto;
+import com.example.bankcards.dto.response.CardBulkCreateResponseDto;
+import com.example.bankcards.dto.response.CardBalanceResponseDto;
 import com.example.bankcards.dto.response.CardCreateResponseDto;
 import com.example.bankcards.dto.response.CardResponseDto;
+import com.example.bankcards.dto.response.CursorPageResponseDto;
 import com.example.bankcards.entity.ApplicationEntity;
 import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.repository.ApplicationEntityRepository;
 import com.example.bankcards.repository.CardEntityRepository;
 import com.example.bankcards.repository.ClientEntityRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import com.example.bankcards.repository.projection.CardSummaryView;
 import com.example.bankcards.service.IAdminCardService;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import com.example.bankcards.service.cache.OwnerCardListCache;
+import com.example.bankcards.service.transfer.CardBalanceShards;
+import com.example.bankcards.util.CursorCodec;
+import com.example.bankcards.util.Transactions;
 import com.example.bankcards.util.card_generator.CardGenerationResult;
 import com.example.bankcards.util.card_generator.ICardNumberGenerator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
 public class AdminCardService implements IAdminCardService {
 
     private static final int PAGE_SIZE = 10;
+    private static final int PAN_HASH_LOOKUP_CHUNK = 1000;
+    // lowest uuid in PostgreSQL's (unsigned, bytewise) uuid ordering
+    private static final UUID FIRST_UUID = new UUID(0L, 0L);
+    private static final int MAX_REGENERATION_ROUNDS = 5;
 
     private final ApplicationEntityRepository applicationEntityRepository;
     private final CardEntityRepository cardEntityRepository;
     private final ICardNumberGenerator cardNumberGenerator;
     private final ClientEntityRepository clientEntityRepository;
+    private final CardBalanceShards cardBalanceShards;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final PaginationProperties paginationProperties;
+    private final OwnerCardListCache ownerCardListCache;
+    private final CardBalanceCache cardBalanceCache;
 
     @Override
+    @Transactional
     public ResponseEntity<?> createCard(CardCreateRequestDto cardCreateRequestDto) {
         try {
             UUID ownerId = cardCreateRequestDto.getOwnerId();
@@ -50,6 +81,7 @@ public class AdminCardService implements IAdminCardService {
             CardEntity cardEntity = CardEntity.builder()
                     .ownerId(ownerId)
                     .panEncrypted(generated.encryptedPan())
+                    .panCiphertext(generated.panCiphertext())
                     .last4(generated.last4())
                     .panHash(generated.panHash())
                     .status(CardStatus.ACTIVE)
@@ -59,34 +91,108 @@ public class AdminCardService implements IAdminCardService {
                     .build();
 
             CardEntity saved = cardEntityRepository.save(cardEntity);
+            cardEntityRepository.flush();
+            ownerCardListCache.invalidate(ownerId);
+            cardBalanceCache.recordAfterCommit(saved);
 
             return new ResponseEntity<>(CardCreateResponseDto.from(saved, generated.plainPan()), HttpStatus.CREATED);
 
         } catch (DataIntegrityViolationException e) {
+            Transactions.rollbackOnly();
             return new ResponseEntity<>("Card with generated number already exists", HttpStatus.CONFLICT);
         } catch (Exception e) {
+            Transactions.rollbackOnly();
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @Override
+    public ResponseEntity<?> createCards(CardBulkCreateRequestDto request) {
+        try {
+            List<UUID> ownerIds = request == null ? null : request.getOwnerIds();
+            boolean byOwners = ownerIds != null && !ownerIds.isEmpty();
+            if (request == null || byOwners == (request.getCount() != null)) {
+                return new ResponseEntity<>("Either ownerIds or count must be provided", HttpStatus.BAD_REQUEST);
+            }
+            int total = byOwners ? ownerIds.size() : request.getCount();
+            if (total < 1 || total > CardBulkCreateRequestDto.MAX_CARDS) {
+                return new ResponseEntity<>("Between 1 and " + CardBulkCreateRequestDto.MAX_CARDS
+                        + " cards can be issued at once", HttpStatus.BAD_REQUEST);
+            }
+            if (byOwners) {
+                if (ownerIds.stream().anyMatch(Objects::isNull)) {
+                    return new ResponseEntity<>("Owner ids must not be null", HttpStatus.BAD_REQUEST);
+                }
+                Set<UUID> distinctOwners = new HashSet<>(ownerIds);
+                if (clientEntityRepository.countByIdIn(distinctOwners) != distinctOwners.size()) {
+                    return new ResponseEntity<>("Some owners do not exist", HttpStatus.BAD_REQUEST);
+                }
+            }
+
+            List<CardGenerationResult> generated = generateUnique(total);
+
+            List<CardEntity> cards = new ArrayList<>(total);
+            for (int i = 0; i < total; i++) {
+                CardGenerationResult result = generated.get(i);
+                cards.add(CardEntity.builder()
+                        .ownerId(byOwners ? ownerIds.get(i) : null)
+                        .panEncrypted(result.encryptedPan())
+                        .panCiphertext(result.panCiphertext())
+                        .last4(result.last4())
+                        .panHash(result.panHash())
+                        .status(CardStatus.ACTIVE)
+                        .balance(0L)
+                        .expiryMonth(result.expiryMonth())
+                        .expiryYear(result.expiryYear())
+                        .build());
+            }
+
+            List<CardEntity> saved = cardEntityRepository.insertAll(cards);
+            if (byOwners) {
+                ownerCardListCache.invalidate(ownerIds);
+            }
+
+            List<CardCreateResponseDto> created = new ArrayList<>(saved.size());
+            for (int i = 0; i < saved.size(); i++) {
+                created.add(CardCreateResponseDto.from(saved.get(i), generated.get(i).plainPan()));
+            }
+            return new ResponseEntity<>(CardBulkCreateResponseDto.builder()
+                    .created(created.size())
+                    .cards(created)
+                    .build(), HttpStatus.CREATED);
+
+        } catch (DataIntegrityViolationException e) {
+            return new ResponseEntity<>("Card with generated number already exists", HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Override
+    @Transactional
     public ResponseEntity<?> deleteCard(Long id) {
         try {
-            if(cardEntityRepository.existsById(id)) {
-                cardEntityRepository.deleteById(id);
+            Optional<CardEntity> card = cardEntityRepository.findByIdForUpdate(id);
+            if(card.isPresent()) {
+                cardEntityRepository.delete(card.get());
+                cardEntityRepository.flush();
+                ownerCardListCache.invalidate(card.get().getOwnerId());
+                cardBalanceCache.removeAfterCommit(id);
                 return new ResponseEntity<>(HttpStatus.OK);
             }else {
                 return new ResponseEntity<>("Card with id " + id + " does not exist", HttpStatus.NOT_FOUND);
             }
         } catch (Exception e) {
+           Transactions.rollbackOnly();
            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @Override
+    @Transactional
     public ResponseEntity<?> updateCard(CardUpdateRequestDto updateRequestDto, Long id) {
         try {
-            Optional<CardEntity> cardEntityOptional = cardEntityRepository.findById(id);
+            Optional<CardEntity> cardEntityOptional = cardEntityRepository.findByIdForUpdate(id);
             if (cardEntityOptional.isEmpty()) {
                 return new ResponseEntity<>("Card with id " + id + " does not exist", HttpStatus.NOT_FOUND);
             }
@@ -96,6 +202,7 @@ public class AdminCardService implements IAdminCardService {
             }
 
             CardEntity cardEntity = cardEntityOptional.get();
+            UUID previousOwnerId = cardEntity.getOwnerId();
 
             if (updateRequestDto.getOwnerId() != null) {
                 cardEntity.setOwnerId(updateRequestDto.getOwnerId());
@@ -107,26 +214,33 @@ public class AdminCardService implements IAdminCardService {
             }
 
             CardEntity saved = cardEntityRepository.save(cardEntity);
+            cardEntityRepository.flush();
+            ownerCardListCache.invalidate(previousOwnerId, saved.getOwnerId());
+            cardBalanceCache.recordAfterCommit(saved);
             return ResponseEntity.ok().body(CardResponseDto.from(saved));
         } catch (Exception e) {
+            Transactions.rollbackOnly();
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @Override
+    @Transactional
     public ResponseEntity<?> blockCard(Long cardId) {
         return updateCardStatus(cardId, CardStatus.BLOCKED);
     }
 
     @Override
+    @Transactional
     public ResponseEntity<?> activateCard(Long cardId) {
         return updateCardStatus(cardId, CardStatus.ACTIVE);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getCard(Long id) {
         try {
-            Optional<CardEntity> cardEntity = cardEntityRepository.findById(id);
+            Optional<CardSummaryView> cardEntity = cardEntityRepository.findSummaryById(id);
             if(cardEntity.isPresent()) {
                 return ResponseEntity.ok(CardResponseDto.from(cardEntity.get()));
             }else {
@@ -138,11 +252,60 @@ public class AdminCardService implements IAdminCardService {
     }
 
     @Override
-    public ResponseEntity<?> getAllCards(Integer page) {
+    public ResponseEntity<?> updateBalanceShards(Long cardId, Integer shards) {
         try {
+            if (shards == null || shards < 0 || shards > CardBalanceShards.MAX_SHARDS) {
+                return new ResponseEntity<>("Shard count must be between 0 and " + CardBalanceShards.MAX_SHARDS,
+                        HttpStatus.BAD_REQUEST);
+            }
+            Optional<Long> balance = cardBalanceShards.reshard(cardId, shards);
+            if (balance.isEmpty()) {
+                return new ResponseEntity<>("Card with id " + cardId + " does not exist", HttpStatus.NOT_FOUND);
+            }
+            return ResponseEntity.ok(CardBalanceResponseDto.from(balance.get(), cardId));
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getBalanceAt(Long cardId, OffsetDateTime at) {
+        try {
+            if (cardId == null || at == null) {
+                return new ResponseEntity<>("Card identifier and timestamp must be provided", HttpStatus.BAD_REQUEST);
+            }
+            if (!cardEntityRepository.existsById(cardId)) {
+                return new ResponseEntity<>("Card with id " + cardId + " does not exist", HttpStatus.NOT_FOUND);
+            }
+            long balance = ledgerEntryRepository.sumAmountByCardIdAt(cardId, at);
+            return ResponseEntity.ok(CardBalanceResponseDto.from(balance, cardId));
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getAllCards(Integer page, String cursor, Integer size) {
+        try {
+            if (cursor != null || size != null) {
+                int pageSize = paginationProperties.resolve(size);
+                Long afterId;
+                try {
+                    afterId = isFirstPage(cursor) ? 0L : Long.valueOf(CursorCodec.decode(cursor, 1)[0]);
+                } catch (IllegalArgumentException e) {
+                    return new ResponseEntity<>("Invalid cursor", HttpStatus.BAD_REQUEST);
+                }
+                List<CardSummaryView> cards = cardEntityRepository.findSummariesByIdGreaterThanOrderByIdAsc(
+                        afterId, Limit.of(pageSize + 1));
+                return ResponseEntity.ok(CursorPageResponseDto.of(cards, pageSize, CardResponseDto::from,
+                        card -> CursorCodec.encode(card.getId().toString())));
+            }
+
             int pageNumber = (page == null || page < 0) ? 0 : page;
             PageRequest pageRequest = PageRequest.of(pageNumber, PAGE_SIZE, Sort.by("id").ascending());
-            Page<CardResponseDto> cardsPage = cardEntityRepository.findAll(pageRequest)
+            Page<CardResponseDto> cardsPage = cardEntityRepository.findSummariesBy(pageRequest)
                     .map(CardResponseDto::from);
 
             return ResponseEntity.ok(cardsPage.getContent());
@@ -152,6 +315,7 @@ public class AdminCardService implements IAdminCardService {
     }
 
     @Override
+    @Transactional
     public ResponseEntity<?> approveApplication(UUID applicationId) {
         try {
             if (applicationId == null) {
@@ -171,23 +335,44 @@ public class AdminCardService implements IAdminCardService {
             application.setApproved(Boolean.TRUE);
             ApplicationEntity savedApplication = applicationEntityRepository.save(application);
 
-            cardEntityRepository.findById(savedApplication.getCardId())
+            cardEntityRepository.findByIdForUpdate(savedApplication.getCardId())
                     .ifPresent(card -> {
                         if (card.getStatus() != CardStatus.BLOCKED) {
                             card.setStatus(CardStatus.BLOCKED);
                             cardEntityRepository.save(card);
+                            ownerCardListCache.invalidate(card.getOwnerId());
+                            cardBalanceCache.recordAfterCommit(card);
                         }
                     });
+            cardEntityRepository.flush();
 
             return ResponseEntity.ok(ApplicationResponseDto.from(savedApplication));
         } catch (Exception e) {
+            Transactions.rollbackOnly();
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @Override
-    public ResponseEntity<?> getApplications(Integer page, Boolean approved) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getApplications(Integer page, Boolean approved, String cursor, Integer size) {
         try {
+            if (cursor != null || size != null) {
+                int pageSize = paginationProperties.resolve(size);
+                UUID afterId;
+                try {
+                    afterId = isFirstPage(cursor) ? FIRST_UUID : UUID.fromString(CursorCodec.decode(cursor, 1)[0]);
+                } catch (IllegalArgumentException e) {
+                    return new ResponseEntity<>("Invalid cursor", HttpStatus.BAD_REQUEST);
+                }
+                Limit limit = Limit.of(pageSize + 1);
+                List<ApplicationEntity> applications = approved == null
+                        ? applicationEntityRepository.findByIdGreaterThanOrderByIdAsc(afterId, limit)
+                        : applicationEntityRepository.findByApprovedAndIdGreaterThanOrderByIdAsc(approved, afterId, limit);
+                return ResponseEntity.ok(CursorPageResponseDto.of(applications, pageSize, ApplicationResponseDto::from,
+                        application -> CursorCodec.encode(application.getId().toString())));
+            }
+
             int pageNumber = (page == null || page < 0) ? 0 : page;
             PageRequest pageRequest = PageRequest.of(pageNumber, PAGE_SIZE, Sort.by("id").ascending());
             Page<ApplicationResponseDto> applicationPage;
@@ -204,9 +389,48 @@ public class AdminCardService implements IAdminCardService {
         }
     }
 
+    private static boolean isFirstPage(String cursor) {
+        return cursor == null || cursor.isBlank();
+    }
+
+    /**
+     * Generates PANs in parallel (generation, encryption and hashing are CPU bound and the generator
+     * is thread-safe), then regenerates any that collide within the batch or with existing cards.
+     */
+    private List<CardGenerationResult> generateUnique(int total) {
+        List<CardGenerationResult> generated = new ArrayList<>(IntStream.range(0, total)
+                .parallel()
+                .mapToObj(i -> cardNumberGenerator.generate())
+                .toList());
+
+        for (int round = 0; round < MAX_REGENERATION_ROUNDS; round++) {
+            Set<String> taken = new HashSet<>();
+            List<String> hashes = generated.stream().map(CardGenerationResult::panHash).toList();
+            for (int from = 0; from < hashes.size(); from += PAN_HASH_LOOKUP_CHUNK) {
+                taken.addAll(cardEntityRepository.findExistingPanHashes(
+                        hashes.subList(from, Math.min(hashes.size(), from + PAN_HASH_LOOKUP_CHUNK))));
+            }
+
+            List<Integer> collisions = new ArrayList<>();
+            for (int i = 0; i < generated.size(); i++) {
+                if (!taken.add(generated.get(i).panHash())) {
+                    collisions.add(i);
+                }
+            }
+            if (collisions.isEmpty()) {
+                return generated;
+            }
+            for (int index : collisions) {
+                generated.set(index, cardNumberGenerator.generate());
+            }
+        }
+        throw new DataIntegrityViolationException("Could not generate unique card numbers");
+    }
+
+    // runs inside the blockCard / activateCard transaction
     private ResponseEntity<?> updateCardStatus(Long cardId, CardStatus targetStatus) {
         try {
-            Optional<CardEntity> cardOptional = cardEntityRepository.findById(cardId);
+            Optional<CardEntity> cardOptional = cardEntityRepository.findByIdForUpdate(cardId);
             if (cardOptional.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
@@ -218,9 +442,13 @@ public class AdminCardService implements IAdminCardService {
 
             cardEntity.setStatus(targetStatus);
             CardEntity saved = cardEntityRepository.save(cardEntity);
+            cardEntityRepository.flush();
+            ownerCardListCache.invalidate(saved.getOwnerId());
+            cardBalanceCache.recordAfterCommit(saved);
 
             return ResponseEntity.ok(CardResponseDto.from(saved));
         } catch (Exception e) {
+            Transactions.rollbackOnly();
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
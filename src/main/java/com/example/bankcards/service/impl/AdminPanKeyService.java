@@ -0,0 +1,44 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.response.PanReencryptionStatusResponseDto;
+import com.example.bankcards.service.IAdminPanKeyService;
+import com.example.bankcards.service.pan.PanReencryptionJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class AdminPanKeyService implements IAdminPanKeyService {
+
+    private final PanReencryptionJob panReencryptionJob;
+
+    @Override
+    public ResponseEntity<?> startReencryption() {
+        try {
+            Optional<PanReencryptionStatusResponseDto> started = panReencryptionJob.start();
+            if (started.isEmpty()) {
+                return new ResponseEntity<>("Re-encryption is already running", HttpStatus.CONFLICT);
+            }
+            return new ResponseEntity<>(started.get(), HttpStatus.ACCEPTED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Override
+    public ResponseEntity<?> getReencryptionStatus() {
+        try {
+            Optional<PanReencryptionStatusResponseDto> job = panReencryptionJob.latestJob();
+            if (job.isEmpty()) {
+                return new ResponseEntity<>("No re-encryption job has been started", HttpStatus.NOT_FOUND);
+            }
+            return ResponseEntity.ok(job.get());
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
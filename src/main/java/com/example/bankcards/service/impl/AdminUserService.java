@@ -1,19 +1,27 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.config.PaginationProperties;
 import com.example.bankcards.dto.request.CreateUserRequestDto;
+import com.example.bankcards.dto.response.CursorPageResponseDto;
 import com.example.bankcards.dto.response.UserGetResponseDto;
 import com.example.bankcards.entity.ClientEntity;
 import com.example.bankcards.repository.ClientEntityRepository;
+import com.example.bankcards.security.PrincipalCache;
 import com.example.bankcards.service.IAdminUserService;
+import com.example.bankcards.util.CursorCodec;
+import com.example.bankcards.util.Transactions;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -23,24 +31,31 @@ public class AdminUserService implements IAdminUserService {
 
     private final ClientEntityRepository clientEntityRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final PaginationProperties paginationProperties;
 
     private static final int PAGE_SIZE = 10;
 
     @Override
+    @Transactional
     public ResponseEntity<?> deleteUser(UUID id) {
         try {
             if(clientEntityRepository.existsClientEntityById(id)){
                 clientEntityRepository.deleteClientEntityById(id);
+                clientEntityRepository.flush();
+                principalCache.invalidateClient(id);
                 return new ResponseEntity<>(HttpStatus.OK);
             }else {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
         }catch (Exception e){
+            Transactions.rollbackOnly();
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
     @Override
+    @Transactional
     public ResponseEntity<?> addUser(CreateUserRequestDto createUserRequestDto) {
         try {
             if (createUserRequestDto == null
@@ -59,14 +74,17 @@ public class AdminUserService implements IAdminUserService {
                     .build();
 
             ClientEntity saved = clientEntityRepository.save(user);
+            clientEntityRepository.flush();
 
             return new ResponseEntity<>(UserGetResponseDto.from(saved), HttpStatus.CREATED);
         }catch (Exception e){
+            Transactions.rollbackOnly();
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @Override
+    @Transactional
     public ResponseEntity<?> updateUser(UUID id, CreateUserRequestDto createUserRequestDto) {
         try {
             if (id == null || createUserRequestDto == null) {
@@ -95,13 +113,17 @@ public class AdminUserService implements IAdminUserService {
             }
 
             ClientEntity saved = clientEntityRepository.save(user);
+            clientEntityRepository.flush();
+            principalCache.invalidateClient(id);
             return ResponseEntity.ok(UserGetResponseDto.from(saved));
         }catch (Exception e){
+            Transactions.rollbackOnly();
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getUser(UUID id) {
         try {
             if(id != null) {
@@ -119,8 +141,30 @@ public class AdminUserService implements IAdminUserService {
     }
 
     @Override
-    public ResponseEntity<?> getUsers(Integer page) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getUsers(Integer page, String cursor, Integer size) {
         try {
+            if (cursor != null || size != null) {
+                int pageSize = paginationProperties.resolve(size);
+                Limit limit = Limit.of(pageSize + 1);
+                List<ClientEntity> users;
+                if (cursor == null || cursor.isBlank()) {
+                    users = clientEntityRepository.findAllByOrderByLoginAscIdAsc(limit);
+                } else {
+                    String[] key;
+                    UUID id;
+                    try {
+                        key = CursorCodec.decode(cursor, 2);
+                        id = UUID.fromString(key[1]);
+                    } catch (IllegalArgumentException e) {
+                        return new ResponseEntity<>("Invalid cursor", HttpStatus.BAD_REQUEST);
+                    }
+                    users = clientEntityRepository.findByLoginAfter(key[0], id, limit);
+                }
+                return ResponseEntity.ok(CursorPageResponseDto.of(users, pageSize, UserGetResponseDto::from,
+                        user -> CursorCodec.encode(user.getLogin(), user.getId().toString())));
+            }
+
             int pageNumber = (page == null || page < 0) ? 0 : page;
             PageRequest pageRequest = PageRequest.of(pageNumber, PAGE_SIZE, Sort.by("login").ascending());
             Page<UserGetResponseDto> usersPage = clientEntityRepository.findAll(pageRequest)
@@ -8,6 +8,8 @@ import com.example.bankcards.entity.ClientEntity;
 import com.example.bankcards.entity.enums.RoleType;
 import com.example.bankcards.repository.AdminEntityRepository;
 import com.example.bankcards.repository.ClientEntityRepository;
+import com.example.bankcards.security.BankUserDetails;
+import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtService;
 import com.example.bankcards.security.JwtTokenType;
 import com.example.bankcards.exception.JwtValidationException;
@@ -17,11 +19,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -31,12 +33,13 @@ public class AuthService implements IAuthService {
     private final ClientEntityRepository clientRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final CustomUserDetailsService userDetailsService;
 
     @Override
     public ResponseEntity<?> login(AuthRequestDto request) {
         String username;
         String encodedPassword;
+        UUID clientId = null;
         RoleType role = request.getRole();
 
         if (role == RoleType.ADMIN) {
@@ -49,13 +52,14 @@ public class AuthService implements IAuthService {
                     .orElseThrow(() -> new BadCredentialsException("Invalid credentials"));
             username = client.getLogin();
             encodedPassword = client.getPassword();
+            clientId = client.getId();
         }
 
         if (!passwordEncoder.matches(request.getPassword(), encodedPassword)) {
             throw new BadCredentialsException("Invalid credentials");
         }
 
-        String accessToken = jwtService.generateAccessToken(username, role);
+        String accessToken = jwtService.generateAccessToken(username, role, clientId);
         String refreshToken = jwtService.generateRefreshToken(username, role);
 
         AuthResponseDto authResponseDto = AuthResponseDto.builder()
@@ -85,12 +89,13 @@ public class AuthService implements IAuthService {
 
         RoleType role = jwtService.extractRole(claims);
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-        if (!jwtService.isTokenValid(request.getRefreshToken(), userDetails, JwtTokenType.REFRESH)) {
+        UserDetails userDetails = userDetailsService.loadUserByUsernameAndRole(username, role);
+        if (!jwtService.isTokenValid(claims, userDetails, JwtTokenType.REFRESH)) {
             throw new JwtValidationException("Refresh token is not valid");
         }
 
-        String newAccessToken = jwtService.generateAccessToken(username, role);
+        UUID clientId = userDetails instanceof BankUserDetails bankUser ? bankUser.getClientId() : null;
+        String newAccessToken = jwtService.generateAccessToken(username, role, clientId);
         String newRefreshToken = jwtService.generateRefreshToken(username, role);
 
         AuthResponseDto authResponseDto = AuthResponseDto.builder()
@@ -1,19 +1,35 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.config.PaginationProperties;
+import com.example.bankcards.datasource.ReadYourWrites;
 import com.example.bankcards.dto.request.CardTransferRequestDto;
 import com.example.bankcards.dto.response.ApplicationResponseDto;
 import com.example.bankcards.dto.response.CardBalanceResponseDto;
 import com.example.bankcards.dto.response.CardResponseDto;
-import com.example.bankcards.dto.response.CardTransferResponseDto;
+import com.example.bankcards.dto.response.CursorPageResponseDto;
+import com.example.bankcards.dto.response.LedgerEntryResponseDto;
 import com.example.bankcards.entity.ApplicationEntity;
 import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.ClientEntity;
+import com.example.bankcards.entity.LedgerEntryEntity;
 import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.exception.CardTransferException;
 import com.example.bankcards.repository.ApplicationEntityRepository;
 import com.example.bankcards.repository.CardEntityRepository;
 import com.example.bankcards.repository.ClientEntityRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import com.example.bankcards.repository.projection.CardBalanceView;
+import com.example.bankcards.repository.projection.CardSummaryView;
+import com.example.bankcards.security.BankUserDetails;
 import com.example.bankcards.service.IUserCardService;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import com.example.bankcards.service.cache.OwnerCardListCache;
+import com.example.bankcards.service.transfer.CardBalanceShards;
+import com.example.bankcards.service.transfer.ICardTransferExecutor;
+import com.example.bankcards.util.CursorCodec;
+import com.example.bankcards.util.Transactions;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -21,7 +37,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,47 +50,78 @@ import java.util.UUID;
 public class UserCardService implements IUserCardService {
 
     private static final int PAGE_SIZE = 10;
+    private static final int HISTORY_PAGE_SIZE = 20;
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
 
     private final CardEntityRepository cardEntityRepository;
     private final ClientEntityRepository clientEntityRepository;
     private final ApplicationEntityRepository applicationEntityRepository;
-
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final ICardTransferExecutor cardTransferExecutor;
+    private final CardBalanceShards cardBalanceShards;
+    private final PaginationProperties paginationProperties;
+    private final OwnerCardListCache ownerCardListCache;
+    private final CardBalanceCache cardBalanceCache;
+
+    // no surrounding transaction: cache hits need no connection, and a load that is cached runs in
+    // its own transaction on the primary, see OwnerCardListCache
     @Override
-    public ResponseEntity<?> getCards(Integer page, UserDetails userDetails) {
+    public ResponseEntity<?> getCards(Integer page, String cursor, Integer size, UserDetails userDetails) {
         try {
-            Optional<ClientEntity> clientOptional = resolveClient(userDetails);
-            if (clientOptional.isEmpty()) {
+            Optional<UUID> ownerOptional = resolveOwnerId(userDetails);
+            if (ownerOptional.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
             }
 
+            UUID ownerId = ownerOptional.get();
+
+            if (cursor != null || size != null) {
+                int pageSize = paginationProperties.resolve(size);
+                Long afterId;
+                try {
+                    afterId = cursor == null || cursor.isBlank() ? 0L : Long.valueOf(CursorCodec.decode(cursor, 1)[0]);
+                } catch (IllegalArgumentException e) {
+                    return new ResponseEntity<>("Invalid cursor", HttpStatus.BAD_REQUEST);
+                }
+                return ResponseEntity.ok(ownerCardListCache.get(ownerId,
+                        new OwnerCardListCache.PageKey(true, afterId, pageSize), () -> {
+                            List<CardSummaryView> cards = cardEntityRepository
+                                    .findSummariesByOwnerIdAndIdGreaterThanOrderByIdAsc(ownerId, afterId, Limit.of(pageSize + 1));
+                            return CursorPageResponseDto.of(cards, pageSize, CardResponseDto::from,
+                                    card -> CursorCodec.encode(card.getId().toString()));
+                        }));
+            }
+
             int pageNumber = (page == null || page < 0) ? 0 : page;
             PageRequest pageRequest = PageRequest.of(pageNumber, PAGE_SIZE, Sort.by("id").ascending());
-            UUID ownerId = clientOptional.get().getId();
-
-            Page<CardResponseDto> cardPage = cardEntityRepository.findByOwnerId(ownerId, pageRequest)
-                    .map(CardResponseDto::from);
 
-            return ResponseEntity.ok(cardPage.getContent());
+            return ResponseEntity.ok(ownerCardListCache.get(ownerId,
+                    new OwnerCardListCache.PageKey(false, pageNumber, PAGE_SIZE), () -> {
+                        Page<CardResponseDto> cardPage = cardEntityRepository.findSummariesByOwnerId(ownerId, pageRequest)
+                                .map(CardResponseDto::from);
+                        return cardPage.getContent();
+                    }));
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     @Override
+    @Transactional
     public ResponseEntity<?> requestCardBlock(Long cardId, UserDetails userDetails) {
         try {
             if (cardId == null) {
                 return new ResponseEntity<>("Card identifier must be provided", HttpStatus.BAD_REQUEST);
             }
 
-            Optional<ClientEntity> clientOptional = resolveClient(userDetails);
-            if (clientOptional.isEmpty()) {
+            Optional<UUID> ownerOptional = resolveOwnerId(userDetails);
+            if (ownerOptional.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
             }
 
-            UUID ownerId = clientOptional.get().getId();
+            UUID ownerId = ownerOptional.get();
 
-            Optional<CardEntity> cardOptional = cardEntityRepository.findByIdAndOwnerId(cardId, ownerId);
+            Optional<CardEntity> cardOptional = cardEntityRepository.findByIdAndOwnerIdForUpdate(cardId, ownerId);
             if (cardOptional.isEmpty()) {
                 return new ResponseEntity<>("Card not found", HttpStatus.NOT_FOUND);
             }
@@ -94,8 +145,12 @@ public class UserCardService implements IUserCardService {
                     .build();
 
             ApplicationEntity savedApplication = applicationEntityRepository.save(application);
+            applicationEntityRepository.flush();
+            ownerCardListCache.invalidate(ownerId);
+            cardBalanceCache.recordAfterCommit(cardEntity);
             return new ResponseEntity<>(ApplicationResponseDto.from(savedApplication), HttpStatus.CREATED);
         } catch (Exception e) {
+            Transactions.rollbackOnly();
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
@@ -110,54 +165,61 @@ public class UserCardService implements IUserCardService {
                     || cardTransferRequestDto.getAmount() <= 0) {
                 return new ResponseEntity<>("Invalid transfer parameters", HttpStatus.BAD_REQUEST);
             }
-            Optional<ClientEntity> clientOptional = resolveClient(userDetails);
-            if (clientOptional.isEmpty()) {
+            Optional<UUID> ownerOptional = resolveOwnerId(userDetails);
+            if (ownerOptional.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
             }
 
-            UUID ownerId = clientOptional.get().getId();
+            UUID ownerId = ownerOptional.get();
 
-            Optional<CardEntity> fromCardOptional = cardEntityRepository.findByIdAndOwnerId(cardTransferRequestDto.getFromCardId(), ownerId);
-            if (fromCardOptional.isEmpty()) {
-                return new ResponseEntity<>("Source card not found", HttpStatus.NOT_FOUND);
-            }
-
-            Optional<CardEntity> toCardOptional = cardEntityRepository.findByIdAndOwnerId(cardTransferRequestDto.getToCardId(), ownerId);
-            if (toCardOptional.isEmpty()) {
-                return new ResponseEntity<>("Destination card not found", HttpStatus.NOT_FOUND);
-            }
+            return ResponseEntity.ok(cardTransferExecutor.transfer(
+                    ownerId,
+                    cardTransferRequestDto.getFromCardId(),
+                    cardTransferRequestDto.getToCardId(),
+                    cardTransferRequestDto.getAmount()));
 
-            CardEntity fromCard = fromCardOptional.get();
-            CardEntity toCard = toCardOptional.get();
+        } catch (CardTransferException e) {
+            return new ResponseEntity<>(e.getMessage(), e.getStatus());
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 
-            if (fromCard.getStatus() == CardStatus.BLOCKED) {
-                return new ResponseEntity<>("Source card is blocked", HttpStatus.BAD_REQUEST);
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getBalance(Long cardId, UserDetails userDetails) {
+        try {
+            if (cardId == null) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
             }
 
-            if (toCard.getStatus() == CardStatus.BLOCKED) {
-                return new ResponseEntity<>("Destination card is blocked", HttpStatus.BAD_REQUEST);
+            Optional<UUID> ownerOptional = resolveOwnerId(userDetails);
+            if (ownerOptional.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
             }
 
-            long fromBalance = fromCard.getBalance() == null ? 0L : fromCard.getBalance();
-            long amount = cardTransferRequestDto.getAmount();
-            if (fromBalance < amount) {
-                return new ResponseEntity<>("Insufficient funds", HttpStatus.BAD_REQUEST);
+            UUID ownerId = ownerOptional.get();
+            // a caller that has just written reads its own balance from the primary, not from the cache
+            long cached = ReadYourWrites.isPrimaryRequired()
+                    ? CardBalanceCache.MISS
+                    : cardBalanceCache.balance(cardId, ownerId);
+            if (cached != CardBalanceCache.MISS) {
+                return ResponseEntity.ok().body(CardBalanceResponseDto.from(cached, cardId));
             }
 
-            long toBalance = toCard.getBalance() == null ? 0L : toCard.getBalance();
-
-            fromCard.setBalance(fromBalance - amount);
-            toCard.setBalance(toBalance + amount);
+            Optional<CardBalanceView> cardOptional = cardEntityRepository.findBalanceByIdAndOwnerId(cardId, ownerId);
+            if (cardOptional.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
 
-            cardEntityRepository.save(fromCard);
-            cardEntityRepository.save(toCard);
+            CardBalanceView card = cardOptional.get();
+            cardBalanceCache.record(card.getId(), ownerId, card.getBalance(), card.getStatus(),
+                    card.isBalanceSharded(), card.getVersion());
+            long balance = card.isBalanceSharded()
+                    ? cardBalanceShards.total(card.getId())
+                    : card.getBalance() == null ? 0L : card.getBalance();
 
-            return ResponseEntity.ok(CardTransferResponseDto.builder()
-                    .fromCardId(fromCard.getId())
-                    .fromBalance(fromCard.getBalance())
-                    .toCardId(toCard.getId())
-                    .toBalance(toCard.getBalance())
-                    .build());
+            return ResponseEntity.ok().body(CardBalanceResponseDto.from(balance, card.getId()));
 
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -165,37 +227,60 @@ public class UserCardService implements IUserCardService {
     }
 
     @Override
-    public ResponseEntity<?> getBalance(Long cardId, UserDetails userDetails) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getTransactions(Long cardId, String cursor, Integer size, UserDetails userDetails) {
         try {
             if (cardId == null) {
                 return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
             }
 
-            Optional<ClientEntity> clientOptional = resolveClient(userDetails);
-            if (clientOptional.isEmpty()) {
+            Optional<UUID> ownerOptional = resolveOwnerId(userDetails);
+            if (ownerOptional.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
             }
 
-            UUID ownerId = clientOptional.get().getId();
-            Optional<CardEntity> cardOptional = cardEntityRepository.findByIdAndOwnerId(cardId, ownerId);
-            if (cardOptional.isEmpty()) {
-                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            if (!cardEntityRepository.existsByIdAndOwnerId(cardId, ownerOptional.get())) {
+                return new ResponseEntity<>("Card not found", HttpStatus.NOT_FOUND);
             }
 
-            CardEntity card = cardOptional.get();
-            long balance = card.getBalance() == null ? 0L : card.getBalance();
-
-            return ResponseEntity.ok().body(CardBalanceResponseDto.from(balance, card.getId()));
+            int pageSize = (size == null || size <= 0) ? HISTORY_PAGE_SIZE : Math.min(size, MAX_HISTORY_PAGE_SIZE);
+            Limit limit = Limit.of(pageSize + 1);
+
+            List<LedgerEntryEntity> entries;
+            if (cursor == null || cursor.isBlank()) {
+                entries = ledgerEntryRepository.findLatestByCardId(cardId, limit);
+            } else {
+                String[] key;
+                OffsetDateTime createdAt;
+                Long id;
+                try {
+                    key = CursorCodec.decode(cursor, 2);
+                    createdAt = OffsetDateTime.parse(key[0]);
+                    id = Long.valueOf(key[1]);
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    return new ResponseEntity<>("Invalid cursor", HttpStatus.BAD_REQUEST);
+                }
+                entries = ledgerEntryRepository.findByCardIdBefore(cardId, createdAt, id, limit);
+            }
 
+            return ResponseEntity.ok(CursorPageResponseDto.of(entries, pageSize, LedgerEntryResponseDto::from,
+                    last -> CursorCodec.encode(last.getCreatedAt().toString(), last.getId().toString())));
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    private Optional<ClientEntity> resolveClient(UserDetails userDetails) {
+    /**
+     * Principals resolved by the JWT filter already carry the client id; the login lookup is only
+     * needed for principals that do not.
+     */
+    private Optional<UUID> resolveOwnerId(UserDetails userDetails) {
         if (userDetails == null || userDetails.getUsername() == null) {
             return Optional.empty();
         }
-        return clientEntityRepository.findByLogin(userDetails.getUsername());
+        if (userDetails instanceof BankUserDetails bankUser && bankUser.getClientId() != null) {
+            return Optional.of(bankUser.getClientId());
+        }
+        return clientEntityRepository.findByLogin(userDetails.getUsername()).map(ClientEntity::getId);
     }
 }
@@ -0,0 +1,255 @@
+package com.example.bankcards.service.pan;
+
+import com.example.bankcards.util.PanCiphertext;
+import com.example.bankcards.util.card_generator.CardGenerationResult;
+import com.example.bankcards.util.card_generator.CardNumberPoolProperties;
+import com.example.bankcards.util.card_generator.SecureCardNumberGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-generated card numbers per BIN, already encrypted, hashed and checked against
+ * {@code cards}. Every pooled number is also a row in {@code card_number_pool}, so the pool
+ * survives restarts; taking a number deletes its row first, which is also what keeps two
+ * instances that loaded the same rows from handing out the same number. Refills run on a
+ * single background thread whenever a BIN drops below the low watermark and stop at the high
+ * one. An empty pool is not an error: callers fall back to generating on the spot. Numbers
+ * encrypted under a key that is no longer current are dropped, on load and when taken, instead
+ * of being re-encrypted: the key may be retired already and a fresh number costs nothing.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "bankcards.pan.pool", name = "enabled", havingValue = "true")
+public class CardNumberPool {
+
+    private static final String SELECT_POOL_SQL = """
+            SELECT p.pan_hash, p.pan_ciphertext FROM card_number_pool p
+            WHERE p.bin_prefix = :binPrefix AND p.pan_length = :length
+              AND NOT EXISTS (SELECT 1 FROM cards c WHERE c.pan_hash = p.pan_hash)
+            ORDER BY p.id
+            """;
+
+    private static final String DELETE_ISSUED_SQL = """
+            DELETE FROM card_number_pool p
+            WHERE EXISTS (SELECT 1 FROM cards c WHERE c.pan_hash = p.pan_hash)
+            """;
+
+    private static final String DELETE_STALE_KEY_SQL = """
+            DELETE FROM card_number_pool WHERE get_byte(pan_ciphertext, 0) <> :keyVersion
+            """;
+
+    private static final String DELETE_ONE_SQL = "DELETE FROM card_number_pool WHERE pan_hash = :panHash";
+
+    private static final String INSERT_SQL = """
+            INSERT INTO card_number_pool (bin_prefix, pan_length, pan_hash, pan_ciphertext)
+            VALUES (:binPrefix, :length, :panHash, :ciphertext)
+            ON CONFLICT (pan_hash) DO NOTHING
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SecureCardNumberGenerator generator;
+    private final CardNumberPoolProperties properties;
+
+    private final Map<Bin, BlockingQueue<Entry>> queues = new LinkedHashMap<>();
+    private final Set<Bin> refilling = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refiller = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "card-number-pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile boolean loaded;
+    private volatile boolean stopRequested;
+
+    public CardNumberPool(NamedParameterJdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          SecureCardNumberGenerator generator,
+                          CardNumberPoolProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.generator = generator;
+        this.properties = properties;
+        for (CardNumberPoolProperties.Bin configured : properties.getBins()) {
+            Bin bin = new Bin(configured.getPrefix(), configured.getLength());
+            BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+            queues.put(bin, queue);
+            Gauge.builder("card.number.pool.size", queue, BlockingQueue::size)
+                    .tag("bin", bin.toString())
+                    .register(meterRegistry);
+        }
+        this.hits = Counter.builder("card.number.pool.take").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("card.number.pool.take").tag("result", "miss").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        int removed = jdbcTemplate.update(DELETE_ISSUED_SQL, new MapSqlParameterSource());
+        if (removed > 0) {
+            log.info("Dropped {} pooled card numbers that were issued outside the pool", removed);
+        }
+        int stale = jdbcTemplate.update(DELETE_STALE_KEY_SQL,
+                new MapSqlParameterSource("keyVersion", generator.currentKeyVersion()));
+        if (stale > 0) {
+            log.info("Dropped {} pooled card numbers encrypted under an older key", stale);
+        }
+        queues.forEach((bin, queue) -> {
+            queue.addAll(jdbcTemplate.query(SELECT_POOL_SQL,
+                    new MapSqlParameterSource("binPrefix", bin.prefix()).addValue("length", bin.length()),
+                    (rs, rowNum) -> new Entry(rs.getString("pan_hash"), rs.getBytes("pan_ciphertext"))));
+            log.info("Loaded {} pooled card numbers for BIN {}", queue.size(), bin);
+        });
+        loaded = true;
+        refillBelowLowWatermark();
+    }
+
+    /**
+     * Hands out a pooled number for the BIN, or empty when the BIN is not pooled or has run dry.
+     */
+    public Optional<CardGenerationResult> take(String binPrefix, int length) {
+        Bin bin = new Bin(binPrefix, length);
+        BlockingQueue<Entry> queue = queues.get(bin);
+        if (queue == null || !loaded) {
+            return Optional.empty();
+        }
+        try {
+            Entry entry;
+            while ((entry = queue.poll()) != null) {
+                int deleted = jdbcTemplate.update(DELETE_ONE_SQL, new MapSqlParameterSource("panHash", entry.panHash()));
+                if (PanCiphertext.keyVersion(entry.ciphertext()) != generator.currentKeyVersion()) {
+                    // pooled before a key rotation
+                    continue;
+                }
+                if (deleted == 1) {
+                    hits.increment();
+                    return Optional.of(generator.restore(entry.ciphertext(), entry.panHash()));
+                }
+                // already taken by another instance
+            }
+            misses.increment();
+            return Optional.empty();
+        } finally {
+            if (queue.size() < properties.getLowWatermark()) {
+                requestRefill(bin);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bankcards.pan.pool.check-interval-ms:5000}",
+            initialDelayString = "${bankcards.pan.pool.check-interval-ms:5000}")
+    public void refillBelowLowWatermark() {
+        if (!loaded) {
+            return;
+        }
+        queues.forEach((bin, queue) -> {
+            if (queue.size() < properties.getLowWatermark()) {
+                requestRefill(bin);
+            }
+        });
+    }
+
+    public int size(String binPrefix, int length) {
+        BlockingQueue<Entry> queue = queues.get(new Bin(binPrefix, length));
+        return queue == null ? 0 : queue.size();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopRequested = true;
+        refiller.shutdownNow();
+        refiller.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void requestRefill(Bin bin) {
+        if (stopRequested || !refilling.add(bin)) {
+            return;
+        }
+        try {
+            refiller.execute(() -> {
+                try {
+                    refill(bin);
+                } catch (RuntimeException e) {
+                    log.warn("Refilling the card number pool for BIN {} failed, will retry", bin, e);
+                } finally {
+                    refilling.remove(bin);
+                }
+            });
+        } catch (RuntimeException e) {
+            refilling.remove(bin);
+            throw e;
+        }
+    }
+
+    void refill(Bin bin) {
+        BlockingQueue<Entry> queue = queues.get(bin);
+        int batchSize = Math.max(1, properties.getRefillBatchSize());
+        while (!stopRequested && queue.size() < properties.getHighWatermark()) {
+            int wanted = Math.min(batchSize, properties.getHighWatermark() - queue.size());
+            Map<String, Entry> candidates = new LinkedHashMap<>();
+            for (int i = 0; i < wanted; i++) {
+                CardGenerationResult generated = generator.generate(bin.prefix(), bin.length());
+                byte[] ciphertext = generated.panCiphertext() != null
+                        ? generated.panCiphertext()
+                        : PanCiphertext.fromText(generated.encryptedPan(), PanCiphertext.INITIAL_KEY_VERSION);
+                candidates.put(generated.panHash(), new Entry(generated.panHash(), ciphertext));
+            }
+            jdbcTemplate.queryForList("SELECT pan_hash FROM cards WHERE pan_hash IN (:panHashes)",
+                            new MapSqlParameterSource("panHashes", candidates.keySet()), String.class)
+                    .forEach(candidates::remove);
+
+            List<Entry> stored = transactionTemplate.execute(status -> {
+                List<Entry> inserted = new ArrayList<>(candidates.size());
+                for (Entry entry : candidates.values()) {
+                    int rows = jdbcTemplate.update(INSERT_SQL, new MapSqlParameterSource("binPrefix", bin.prefix())
+                            .addValue("length", bin.length())
+                            .addValue("panHash", entry.panHash())
+                            .addValue("ciphertext", entry.ciphertext()));
+                    if (rows == 1) {
+                        inserted.add(entry);
+                    }
+                }
+                return inserted;
+            });
+            queue.addAll(stored);
+        }
+    }
+
+    record Bin(String prefix, int length) {
+
+        @Override
+        public String toString() {
+            return prefix + "/" + length;
+        }
+    }
+
+    private record Entry(String panHash, byte[] ciphertext) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.bankcards.service.pan;
+
+import com.example.bankcards.repository.CardCacheEviction;
+import com.example.bankcards.util.PanCiphertext;
+import com.example.bankcards.util.card_generator.PanStorageMode;
+import com.example.bankcards.util.card_generator.PanStorageProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves existing cards from the text {@code pan_encrypted} column to the binary
+ * {@code pan_ciphertext} column. The conversion only re-encodes the stored IV and ciphertext,
+ * so no key is needed. Walks {@code cards} once per application start in primary-key order,
+ * one short transaction per batch and one batch per scheduler tick, so it never holds many row
+ * locks or competes with API traffic for long. The text column is kept unless the mode is
+ * {@code binary} and {@code bankcards.pan.backfill.clear-text} is switched on, a separate step
+ * taken once nothing needs the text any more; the pass then also empties it on cards converted
+ * earlier.
+ */
+@Slf4j
+@Component
+public class PanCiphertextBackfill {
+
+    private static final String SELECT_SQL = """
+            SELECT id, pan_encrypted FROM cards
+            WHERE id > :afterId
+              AND pan_encrypted IS NOT NULL
+              AND (pan_ciphertext IS NULL OR :clearText)
+            ORDER BY id
+            LIMIT :limit
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE cards
+            SET pan_ciphertext = COALESCE(pan_ciphertext, :ciphertext),
+                pan_encrypted = CASE WHEN :clearText THEN NULL ELSE pan_encrypted END
+            WHERE id = :id AND pan_encrypted = :text
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PanStorageProperties properties;
+    private final CardCacheEviction cardCacheEviction;
+
+    private long lastId;
+    private volatile boolean completed;
+
+    public PanCiphertextBackfill(NamedParameterJdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 PanStorageProperties properties,
+                                 CardCacheEviction cardCacheEviction) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.cardCacheEviction = cardCacheEviction;
+    }
+
+    @Scheduled(fixedDelayString = "${bankcards.pan.backfill.delay-ms:500}",
+            initialDelayString = "${bankcards.pan.backfill.delay-ms:500}")
+    public void runScheduledBatch() {
+        PanStorageMode mode = properties.getStorage();
+        if (completed || !properties.getBackfill().isEnabled() || !mode.writesBinary()) {
+            return;
+        }
+        try {
+            if (migrateBatch(mode) == 0) {
+                completed = true;
+                log.info("PAN ciphertext backfill finished at card id {}", lastId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("PAN ciphertext backfill batch after card id {} failed, will retry", lastId, e);
+        }
+    }
+
+    /**
+     * Converts the next batch and returns how many rows were examined; zero means the pass is over.
+     */
+    synchronized int migrateBatch(PanStorageMode mode) {
+        boolean clearText = !mode.writesText() && properties.getBackfill().isClearText();
+        List<Row> rows = jdbcTemplate.query(SELECT_SQL,
+                new MapSqlParameterSource("afterId", lastId)
+                        .addValue("clearText", clearText)
+                        .addValue("limit", properties.getBackfill().getBatchSize()),
+                (rs, rowNum) -> new Row(rs.getLong("id"), rs.getString("pan_encrypted")));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<SqlParameterSource> updates = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            try {
+                updates.add(new MapSqlParameterSource("id", row.id())
+                        .addValue("text", row.text())
+                        .addValue("ciphertext", PanCiphertext.fromText(row.text(), PanCiphertext.INITIAL_KEY_VERSION))
+                        .addValue("clearText", clearText));
+            } catch (IllegalArgumentException e) {
+                log.warn("Card {} has a malformed pan_encrypted value, skipping", row.id());
+            }
+        }
+        if (!updates.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, updates.toArray(SqlParameterSource[]::new)));
+            cardCacheEviction.evict(rows.stream().map(Row::id).toList());
+        }
+        lastId = rows.get(rows.size() - 1).id();
+        return rows.size();
+    }
+
+    private record Row(long id, String text) {
+    }
+}
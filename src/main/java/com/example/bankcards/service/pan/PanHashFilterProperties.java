@@ -0,0 +1,33 @@
+package com.example.bankcards.service.pan;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bankcards.pan.hash-filter")
+public class PanHashFilterProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Share of fresh numbers wrongly reported as taken, each costing one extra generation.
+     */
+    private double falsePositiveRate = 0.001;
+
+    /**
+     * Lower bound for the filter size; it is sized for twice the current card count when larger.
+     */
+    private long expectedEntries = 1_000_000;
+
+    /**
+     * Candidates tried per card before the last one is handed out and the unique index decides.
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * Rows fetched per round trip while streaming {@code cards.pan_hash} into the filter.
+     */
+    private int fetchSize = 10_000;
+}
@@ -0,0 +1,156 @@
+package com.example.bankcards.service.pan;
+
+import com.example.bankcards.util.PanHashBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory Bloom filter of every {@code pan_hash} in {@code cards}, consulted before a
+ * generated number is encrypted so that collisions are regenerated instead of surfacing as a
+ * unique-index violation. The column is streamed in once after startup, on a background thread;
+ * until then every candidate is accepted and the index alone guards uniqueness. Numbers are
+ * recorded when they are handed out, which covers every insert path (single, bulk and pool)
+ * and numbers still in flight; cards inserted by other instances are picked up by the next
+ * rebuild, which also runs whenever the filter outgrows its capacity.
+ */
+@Slf4j
+@Component
+public class PanHashIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final PanHashFilterProperties properties;
+
+    private final Counter collisions;
+    private final Counter retries;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pan-hash-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile PanHashBloomFilter filter;
+    private volatile PanHashBloomFilter building;
+
+    public PanHashIndex(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        PanHashFilterProperties properties,
+                        MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
+        this.collisions = Counter.builder("card.number.collisions").register(meterRegistry);
+        this.retries = Counter.builder("card.number.retries").register(meterRegistry);
+        Gauge.builder("card.number.filter.entries", this,
+                index -> index.filter == null ? 0 : index.filter.insertions()).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        requestRebuild();
+    }
+
+    /**
+     * Decides whether the candidate with the given hash may be handed out as the
+     * {@code attempt}-th try for one card, and records it if so. A probable collision is
+     * rejected unless it is the last allowed attempt, in which case the unique index decides.
+     */
+    public boolean claim(String panHash, int attempt) {
+        PanHashBloomFilter current = filter;
+        if (!properties.isEnabled() || current == null) {
+            return true;
+        }
+        if (current.mightContain(panHash)) {
+            collisions.increment();
+            if (attempt < properties.getMaxAttempts()) {
+                retries.increment();
+                return false;
+            }
+            log.warn("Giving up on a collision-free card number after {} attempts", attempt);
+        }
+        record(panHash);
+        return true;
+    }
+
+    public void record(String panHash) {
+        PanHashBloomFilter next = building;
+        if (next != null) {
+            next.put(panHash);
+        }
+        PanHashBloomFilter current = filter;
+        if (current != null && current != next) {
+            current.put(panHash);
+            if (current.insertions() > current.capacity()) {
+                requestRebuild();
+            }
+        }
+    }
+
+    public boolean isLoaded() {
+        return filter != null;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        loader.shutdownNow();
+        loader.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void requestRebuild() {
+        if (!properties.isEnabled() || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            loader.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("Loading card number hashes into the collision filter failed", e);
+                } finally {
+                    building = null;
+                    rebuilding.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            rebuilding.set(false);
+            throw e;
+        }
+    }
+
+    void rebuild() {
+        long started = System.nanoTime();
+        Long cards = jdbcTemplate.queryForObject("SELECT count(*) FROM cards", Long.class);
+        long expected = Math.max(properties.getExpectedEntries(), 2 * (cards == null ? 0 : cards));
+        PanHashBloomFilter next = new PanHashBloomFilter(expected, properties.getFalsePositiveRate());
+        building = next;
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT pan_hash FROM cards");
+            statement.setFetchSize(properties.getFetchSize());
+            return statement;
+        }, rs -> {
+            next.put(rs.getString(1));
+        }));
+        // swap before the finally block clears building, so no recorded hash falls in between
+        filter = next;
+        log.info("Card number collision filter holds {} hashes ({} bits, {} probes), built in {} ms",
+                next.insertions(), next.bitCount(), next.hashCount(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+}
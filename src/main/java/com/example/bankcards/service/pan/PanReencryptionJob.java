@@ -0,0 +1,318 @@
+package com.example.bankcards.service.pan;
+
+import com.example.bankcards.dto.response.PanReencryptionStatusResponseDto;
+import com.example.bankcards.repository.CardCacheEviction;
+import com.example.bankcards.util.PanCiphertext;
+import com.example.bankcards.util.pan_key.IPanKeyProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Re-encrypts {@code cards.pan_ciphertext} values written under older key versions with the
+ * provider's current key. Cards are streamed in primary-key order in chunks; each chunk is
+ * re-encrypted on a bounded pool and written back, together with the checkpoint in
+ * {@code pan_reencryption_jobs}, in one transaction. A job interrupted by a shutdown or crash is
+ * resumed from its checkpoint on the next start. Throughput is capped by
+ * {@code max-rows-per-second}. Cards still holding only the legacy text column are left to
+ * {@link PanCiphertextBackfill}; they are picked up by the next run once converted.
+ */
+@Slf4j
+@Component
+public class PanReencryptionJob {
+
+    static final String STATUS_RUNNING = "RUNNING";
+    static final String STATUS_COMPLETED = "COMPLETED";
+
+    private static final String SELECT_CHUNK_SQL = """
+            SELECT id, pan_ciphertext FROM cards
+            WHERE id > :afterId
+              AND pan_ciphertext IS NOT NULL
+              AND get_byte(pan_ciphertext, 0) <> :targetVersion
+            ORDER BY id
+            LIMIT :limit
+            """;
+
+    private static final String UPDATE_CARD_SQL = """
+            UPDATE cards SET pan_ciphertext = :ciphertext
+            WHERE id = :id AND pan_ciphertext = :previous
+            """;
+
+    private static final String CHECKPOINT_SQL = """
+            UPDATE pan_reencryption_jobs
+            SET last_card_id = :lastCardId, processed = processed + :processed,
+                failed = failed + :failed, updated_at = now()
+            WHERE id = :jobId
+            """;
+
+    private static final String SELECT_JOB_SQL = """
+            SELECT id, target_version, status, last_card_id, processed, failed, started_at, updated_at, finished_at
+            FROM pan_reencryption_jobs
+            """;
+
+    private static final RowMapper<PanReencryptionStatusResponseDto> JOB_MAPPER = (rs, rowNum) ->
+            PanReencryptionStatusResponseDto.builder()
+                    .jobId(rs.getLong("id"))
+                    .targetVersion(rs.getInt("target_version"))
+                    .status(rs.getString("status"))
+                    .lastCardId(rs.getLong("last_card_id"))
+                    .processed(rs.getLong("processed"))
+                    .failed(rs.getLong("failed"))
+                    .startedAt(rs.getObject("started_at", OffsetDateTime.class))
+                    .updatedAt(rs.getObject("updated_at", OffsetDateTime.class))
+                    .finishedAt(rs.getObject("finished_at", OffsetDateTime.class))
+                    .build();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IPanKeyProvider keyProvider;
+    private final PanReencryptionProperties properties;
+    private final CardCacheEviction cardCacheEviction;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong lastCardId = new AtomicLong();
+    private final Counter reencrypted;
+    private final Counter failed;
+    private final Timer chunkTimer;
+
+    private volatile boolean stopRequested;
+    private ExecutorService coordinator;
+    private ThreadPoolExecutor workers;
+
+    public PanReencryptionJob(NamedParameterJdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              IPanKeyProvider keyProvider,
+                              PanReencryptionProperties properties,
+                              CardCacheEviction cardCacheEviction,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.keyProvider = keyProvider;
+        this.properties = properties;
+        this.cardCacheEviction = cardCacheEviction;
+        this.reencrypted = Counter.builder("pan.reencryption.rows").tag("result", "reencrypted").register(meterRegistry);
+        this.failed = Counter.builder("pan.reencryption.rows").tag("result", "failed").register(meterRegistry);
+        this.chunkTimer = Timer.builder("pan.reencryption.chunk").register(meterRegistry);
+        Gauge.builder("pan.reencryption.running", running, flag -> flag.get() ? 1 : 0).register(meterRegistry);
+        Gauge.builder("pan.reencryption.last.card.id", lastCardId, AtomicLong::get).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        latestJob()
+                .filter(job -> STATUS_RUNNING.equals(job.getStatus()))
+                .ifPresent(job -> {
+                    log.info("Resuming PAN re-encryption job {} after card id {}", job.getJobId(), job.getLastCardId());
+                    launch(job);
+                });
+    }
+
+    /**
+     * Starts a job towards the current key version, or resumes the unfinished one.
+     *
+     * @return empty when a job is already running in this instance
+     */
+    public synchronized Optional<PanReencryptionStatusResponseDto> start() {
+        if (running.get()) {
+            return Optional.empty();
+        }
+        int targetVersion = keyProvider.currentVersion();
+        PanReencryptionStatusResponseDto job = latestJob()
+                .filter(existing -> STATUS_RUNNING.equals(existing.getStatus())
+                        && existing.getTargetVersion() == targetVersion)
+                .orElseGet(() -> createJob(targetVersion));
+        launch(job);
+        return Optional.of(job);
+    }
+
+    public Optional<PanReencryptionStatusResponseDto> latestJob() {
+        return jdbcTemplate.query(SELECT_JOB_SQL + " ORDER BY id DESC LIMIT 1", new MapSqlParameterSource(), JOB_MAPPER)
+                .stream()
+                .findFirst();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopRequested = true;
+        if (coordinator != null) {
+            coordinator.shutdown();
+            coordinator.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private PanReencryptionStatusResponseDto createJob(int targetVersion) {
+        Long jobId = jdbcTemplate.queryForObject("""
+                        INSERT INTO pan_reencryption_jobs (target_version, status)
+                        VALUES (:targetVersion, 'RUNNING')
+                        RETURNING id
+                        """,
+                new MapSqlParameterSource("targetVersion", targetVersion), Long.class);
+        return jdbcTemplate.queryForObject(SELECT_JOB_SQL + " WHERE id = :id",
+                new MapSqlParameterSource("id", jobId), JOB_MAPPER);
+    }
+
+    private synchronized void launch(PanReencryptionStatusResponseDto job) {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        if (job.getTargetVersion() != keyProvider.currentVersion()) {
+            log.warn("PAN re-encryption job {} targets key version {} but current is {}; it will be superseded",
+                    job.getJobId(), job.getTargetVersion(), keyProvider.currentVersion());
+        }
+        int parallelism = Math.max(1, properties.getParallelism());
+        if (workers == null) {
+            workers = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(parallelism * 2), daemon("pan-reencrypt-worker"),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            coordinator = Executors.newSingleThreadExecutor(daemon("pan-reencrypt"));
+        }
+        lastCardId.set(job.getLastCardId());
+        coordinator.submit(() -> {
+            try {
+                run(job.getJobId(), keyProvider.currentVersion(), job.getLastCardId());
+            } catch (Exception e) {
+                log.error("PAN re-encryption job {} stopped at card id {}", job.getJobId(), lastCardId.get(), e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    private void run(long jobId, int targetVersion, long afterId) throws InterruptedException, ExecutionException {
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        while (!stopRequested) {
+            long chunkStart = System.nanoTime();
+            List<Row> rows = jdbcTemplate.query(SELECT_CHUNK_SQL,
+                    new MapSqlParameterSource("afterId", afterId)
+                            .addValue("targetVersion", targetVersion)
+                            .addValue("limit", chunkSize),
+                    (rs, rowNum) -> new Row(rs.getLong("id"), rs.getBytes("pan_ciphertext")));
+            if (rows.isEmpty()) {
+                jdbcTemplate.update("""
+                                UPDATE pan_reencryption_jobs SET status = 'COMPLETED', finished_at = now(), updated_at = now()
+                                WHERE id = :jobId
+                                """,
+                        new MapSqlParameterSource("jobId", jobId));
+                log.info("PAN re-encryption job {} completed", jobId);
+                return;
+            }
+
+            List<SqlParameterSource> updates = reencryptChunk(rows, targetVersion);
+            int failures = rows.size() - updates.size();
+            long checkpoint = rows.get(rows.size() - 1).id();
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!updates.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_CARD_SQL, updates.toArray(SqlParameterSource[]::new));
+                }
+                jdbcTemplate.update(CHECKPOINT_SQL, new MapSqlParameterSource("jobId", jobId)
+                        .addValue("lastCardId", checkpoint)
+                        .addValue("processed", updates.size())
+                        .addValue("failed", failures));
+            });
+            cardCacheEviction.evict(rows.stream().map(Row::id).toList());
+
+            afterId = checkpoint;
+            lastCardId.set(checkpoint);
+            reencrypted.increment(updates.size());
+            failed.increment(failures);
+            long elapsed = System.nanoTime() - chunkStart;
+            chunkTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            throttle(rows.size(), elapsed);
+        }
+    }
+
+    private List<SqlParameterSource> reencryptChunk(List<Row> rows, int targetVersion)
+            throws InterruptedException, ExecutionException {
+        int parallelism = Math.max(1, properties.getParallelism());
+        int sliceSize = (rows.size() + parallelism - 1) / parallelism;
+        List<Future<List<SqlParameterSource>>> slices = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += sliceSize) {
+            List<Row> slice = rows.subList(from, Math.min(rows.size(), from + sliceSize));
+            slices.add(workers.submit(() -> reencryptSlice(slice, targetVersion)));
+        }
+        List<SqlParameterSource> updates = new ArrayList<>(rows.size());
+        for (Future<List<SqlParameterSource>> slice : slices) {
+            updates.addAll(slice.get());
+        }
+        return updates;
+    }
+
+    private List<SqlParameterSource> reencryptSlice(List<Row> slice, int targetVersion) {
+        List<SqlParameterSource> updates = new ArrayList<>(slice.size());
+        for (Row row : slice) {
+            try {
+                updates.add(new MapSqlParameterSource("id", row.id())
+                        .addValue("previous", row.ciphertext())
+                        .addValue("ciphertext", reencrypt(row.ciphertext(), targetVersion)));
+            } catch (RuntimeException e) {
+                log.warn("Cannot re-encrypt PAN of card {}: {}", row.id(), e.getMessage());
+            }
+        }
+        return updates;
+    }
+
+    byte[] reencrypt(byte[] ciphertext, int targetVersion) {
+        int sourceVersion = PanCiphertext.keyVersion(ciphertext);
+        byte[] plain = PanCiphertext.open(keyProvider.engine(sourceVersion), ciphertext);
+        try {
+            return PanCiphertext.wrap(targetVersion, keyProvider.engine(targetVersion).encrypt(plain));
+        } finally {
+            Arrays.fill(plain, (byte) 0);
+        }
+    }
+
+    private void throttle(int rows, long elapsedNanos) throws InterruptedException {
+        int maxRowsPerSecond = properties.getMaxRowsPerSecond();
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long budgetNanos = TimeUnit.SECONDS.toNanos(rows) / maxRowsPerSecond;
+        long pauseNanos = budgetNanos - elapsedNanos;
+        if (pauseNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Row(long id, byte[] ciphertext) {
+    }
+}
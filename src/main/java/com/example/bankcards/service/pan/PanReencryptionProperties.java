@@ -0,0 +1,26 @@
+package com.example.bankcards.service.pan;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bankcards.pan.reencryption")
+public class PanReencryptionProperties {
+
+    /**
+     * Cards read, re-encrypted and committed together; also the checkpoint granularity.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Threads decrypting and encrypting a chunk.
+     */
+    private int parallelism = 2;
+
+    /**
+     * Throughput ceiling so the job does not compete with API traffic; 0 disables throttling.
+     */
+    private int maxRowsPerSecond = 2000;
+}
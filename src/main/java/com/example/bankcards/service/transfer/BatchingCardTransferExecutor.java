@@ -0,0 +1,307 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.response.CardTransferResponseDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.exception.CardTransferException;
+import com.example.bankcards.repository.CardEntityRepository;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Every card belongs to exactly one partition, derived from its id. A transfer between two
+ * cards of the same partition goes to that partition's bounded queue; a transfer between
+ * partitions goes to one shared cross-partition queue. Each queue has exactly one writer
+ * thread, which drains up to {@code max-batch-size} transfers (waiting at most
+ * {@code max-linger-ms} for stragglers), locks all cards of the batch in ascending id order and
+ * applies the transfers sequentially in one transaction, so the whole batch, including its
+ * ledger entries, shares a single commit. Rejected transfers do not affect the rest of the batch.
+ * <p>
+ * A writer holds the guard of every partition its batch touches until the commit: a partition
+ * writer only its own, the cross-partition writer those of all cards in its batch, taken in
+ * partition order. At any time each card is therefore written by a single thread and writers
+ * never wait on each other's row locks. Callers block until the batch holding their transfer
+ * has committed.
+ */
+@Slf4j
+@Component
+@Primary
+@ConditionalOnProperty(prefix = "bankcards.transfer", name = "mode", havingValue = "batched")
+public class BatchingCardTransferExecutor implements ICardTransferExecutor {
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private final CardEntityRepository cardEntityRepository;
+    private final CardBalanceShards cardBalanceShards;
+    private final LedgerWriter ledgerWriter;
+    private final CardBalanceCache cardBalanceCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferRetryTemplate retryTemplate;
+    private final TransferProperties.Batch settings;
+
+    private final List<BlockingQueue<PendingTransfer>> queues = new ArrayList<>();
+    private final List<ReentrantLock> partitionGuards = new ArrayList<>();
+    private BlockingQueue<PendingTransfer> crossPartitionQueue;
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running;
+
+    public BatchingCardTransferExecutor(CardEntityRepository cardEntityRepository,
+                                        CardBalanceShards cardBalanceShards,
+                                        LedgerWriter ledgerWriter,
+                                        CardBalanceCache cardBalanceCache,
+                                        PlatformTransactionManager transactionManager,
+                                        TransferProperties properties) {
+        this.cardEntityRepository = cardEntityRepository;
+        this.cardBalanceShards = cardBalanceShards;
+        this.ledgerWriter = ledgerWriter;
+        this.cardBalanceCache = cardBalanceCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retryTemplate = new TransferRetryTemplate(properties);
+        this.settings = properties.getBatch();
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        int partitions = Math.max(1, settings.getPartitions());
+        for (int i = 0; i < partitions; i++) {
+            // fair, so the cross-partition writer is not starved by a busy partition writer
+            partitionGuards.add(new ReentrantLock(true));
+            startWriter("transfer-writer-" + i);
+        }
+        crossPartitionQueue = partitions > 1 ? startWriter("transfer-writer-cross") : queues.get(0);
+    }
+
+    private BlockingQueue<PendingTransfer> startWriter(String name) {
+        BlockingQueue<PendingTransfer> queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+        Thread writer = new Thread(() -> runWriter(queue), name);
+        writer.setDaemon(true);
+        queues.add(queue);
+        writers.add(writer);
+        writer.start();
+        return queue;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        CardTransferException shutdown =
+                new CardTransferException(HttpStatus.SERVICE_UNAVAILABLE, "Transfer service is shutting down");
+        for (BlockingQueue<PendingTransfer> queue : queues) {
+            PendingTransfer pending;
+            while ((pending = queue.poll()) != null) {
+                if (pending.claim()) {
+                    pending.result.completeExceptionally(shutdown);
+                }
+            }
+        }
+    }
+
+    @Override
+    public CardTransferResponseDto transfer(UUID ownerId, Long fromCardId, Long toCardId, long amount) {
+        TransferRules.requireDistinctCards(fromCardId, toCardId);
+
+        PendingTransfer pending = new PendingTransfer(ownerId, fromCardId, toCardId, amount);
+        int fromPartition = partitionOf(fromCardId);
+        BlockingQueue<PendingTransfer> queue =
+                fromPartition == partitionOf(toCardId) ? queues.get(fromPartition) : crossPartitionQueue;
+        try {
+            if (!running || !queue.offer(pending, settings.getEnqueueTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                throw new CardTransferException(HttpStatus.SERVICE_UNAVAILABLE, "Transfer queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while enqueueing transfer", e);
+        }
+        return pending.await(settings.getEnqueueTimeoutMs());
+    }
+
+    private void runWriter(BlockingQueue<PendingTransfer> queue) {
+        List<PendingTransfer> batch = new ArrayList<>(settings.getMaxBatchSize());
+        while (running) {
+            try {
+                collect(queue, batch);
+            } catch (InterruptedException e) {
+                batch.forEach(pending -> pending.result.completeExceptionally(
+                        new CardTransferException(HttpStatus.SERVICE_UNAVAILABLE, "Transfer service is shutting down")));
+                return;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(BlockingQueue<PendingTransfer> queue, List<PendingTransfer> batch) throws InterruptedException {
+        PendingTransfer first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        addIfClaimed(batch, first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getMaxLingerMs());
+        while (batch.size() < settings.getMaxBatchSize()) {
+            long remaining = deadline - System.nanoTime();
+            PendingTransfer next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                return;
+            }
+            addIfClaimed(batch, next);
+        }
+    }
+
+    private static void addIfClaimed(List<PendingTransfer> batch, PendingTransfer pending) {
+        if (pending.claim()) {
+            batch.add(pending);
+        }
+    }
+
+    int partitionOf(Long cardId) {
+        return Math.floorMod(Long.hashCode(cardId), partitionGuards.size());
+    }
+
+    private void commit(List<PendingTransfer> batch) {
+        Set<Integer> partitions = new TreeSet<>();
+        for (PendingTransfer pending : batch) {
+            partitions.add(partitionOf(pending.fromCardId));
+            partitions.add(partitionOf(pending.toCardId));
+        }
+        List<ReentrantLock> held = new ArrayList<>(partitions.size());
+        try {
+            for (Integer partition : partitions) {
+                ReentrantLock guard = partitionGuards.get(partition);
+                guard.lockInterruptibly();
+                held.add(guard);
+            }
+            List<Outcome> outcomes = retryTemplate.execute(() -> transactionTemplate.execute(status -> applyBatch(batch)));
+            for (int i = 0; i < batch.size(); i++) {
+                outcomes.get(i).completeInto(batch.get(i).result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(pending -> pending.result.completeExceptionally(
+                    new CardTransferException(HttpStatus.SERVICE_UNAVAILABLE, "Transfer service is shutting down")));
+        } catch (RuntimeException e) {
+            log.error("Transfer batch of {} failed", batch.size(), e);
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+        } finally {
+            held.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    private List<Outcome> applyBatch(List<PendingTransfer> batch) {
+        Set<Long> cardIds = new TreeSet<>();
+        for (PendingTransfer pending : batch) {
+            cardIds.add(pending.fromCardId);
+            cardIds.add(pending.toCardId);
+        }
+
+        Map<Long, CardEntity> cards = new HashMap<>();
+        cardEntityRepository.findAllByIdInForUpdate(cardIds).forEach(card -> cards.put(card.getId(), card));
+
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        List<LedgerWriter.Posting> postings = new ArrayList<>(batch.size());
+        for (PendingTransfer pending : batch) {
+            UUID transferId = UUID.randomUUID();
+            try {
+                outcomes.add(new Outcome(TransferRules.apply(transferId, pending.ownerId,
+                        cards.get(pending.fromCardId), cards.get(pending.toCardId), pending.amount, cardBalanceShards), null));
+                postings.add(new LedgerWriter.Posting(transferId, pending.fromCardId, pending.toCardId, pending.amount));
+            } catch (CardTransferException e) {
+                outcomes.add(new Outcome(null, e));
+            }
+        }
+        ledgerWriter.recordTransfers(postings);
+        cards.values().forEach(cardBalanceCache::recordAfterCommit);
+        return outcomes;
+    }
+
+    private record Outcome(CardTransferResponseDto response, CardTransferException failure) {
+
+        void completeInto(CompletableFuture<CardTransferResponseDto> result) {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(response);
+            }
+        }
+    }
+
+    private static final class PendingTransfer {
+
+        private static final int QUEUED = 0;
+        private static final int CLAIMED = 1;
+        private static final int ABANDONED = 2;
+
+        private final UUID ownerId;
+        private final Long fromCardId;
+        private final Long toCardId;
+        private final long amount;
+        private final CompletableFuture<CardTransferResponseDto> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private PendingTransfer(UUID ownerId, Long fromCardId, Long toCardId, long amount) {
+            this.ownerId = ownerId;
+            this.fromCardId = fromCardId;
+            this.toCardId = toCardId;
+            this.amount = amount;
+        }
+
+        private boolean claim() {
+            return state.compareAndSet(QUEUED, CLAIMED);
+        }
+
+        /**
+         * Gives up only while the transfer is still queued; once a writer has claimed it the
+         * caller waits for the batch to commit so it never reports a failure for applied money.
+         */
+        private CardTransferResponseDto await(long timeoutMs) {
+            try {
+                try {
+                    return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (state.compareAndSet(QUEUED, ABANDONED)) {
+                        throw new CardTransferException(HttpStatus.SERVICE_UNAVAILABLE, "Transfer was not processed in time");
+                    }
+                    return result.get();
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException("Transfer failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for transfer", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.repository.CardCacheEviction;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Balance of a hot card split over {@code cards.balance_shards} rows of {@code card_balance_shards}.
+ * Credits land on a random sub-balance so concurrent credits rarely touch the same row; the
+ * card row itself is only share-locked by creditors. Debits and resharding take the card row
+ * exclusively, which keeps them from racing with each other and with in-flight credits.
+ * While a card is sharded its {@code cards.balance} column stays at zero.
+ */
+@Component
+public class CardBalanceShards {
+
+    public static final int MAX_SHARDS = 64;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CardCacheEviction cardCacheEviction;
+    private final CardBalanceCache cardBalanceCache;
+
+    public CardBalanceShards(NamedParameterJdbcTemplate jdbcTemplate,
+                             CardCacheEviction cardCacheEviction,
+                             CardBalanceCache cardBalanceCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cardCacheEviction = cardCacheEviction;
+        this.cardBalanceCache = cardBalanceCache;
+    }
+
+    /**
+     * Requires the card row to be locked at least in share mode.
+     */
+    public void credit(Long cardId, int shards, long amount) {
+        jdbcTemplate.update("""
+                        UPDATE card_balance_shards SET balance = balance + :amount
+                        WHERE card_id = :cardId AND shard_no = :shardNo
+                        """,
+                shardParams(cardId, ThreadLocalRandom.current().nextInt(shards), amount));
+    }
+
+    /**
+     * Requires the card row to be locked exclusively. Tries one random sub-balance first and
+     * falls back to sweeping all of them in shard order.
+     *
+     * @return {@code false} when the sub-balances together do not cover {@code amount}
+     */
+    public boolean debit(Long cardId, int shards, long amount) {
+        int debited = jdbcTemplate.update("""
+                        UPDATE card_balance_shards SET balance = balance - :amount
+                        WHERE card_id = :cardId AND shard_no = :shardNo AND balance >= :amount
+                        """,
+                shardParams(cardId, ThreadLocalRandom.current().nextInt(shards), amount));
+        if (debited == 1) {
+            return true;
+        }
+
+        List<long[]> subBalances = jdbcTemplate.query("""
+                        SELECT shard_no, balance FROM card_balance_shards
+                        WHERE card_id = :cardId
+                        ORDER BY shard_no
+                        FOR UPDATE
+                        """,
+                new MapSqlParameterSource("cardId", cardId),
+                (rs, rowNum) -> new long[]{rs.getInt("shard_no"), rs.getLong("balance")});
+        long available = subBalances.stream().mapToLong(subBalance -> subBalance[1]).sum();
+        if (available < amount) {
+            return false;
+        }
+
+        long remaining = amount;
+        for (long[] subBalance : subBalances) {
+            if (remaining == 0) {
+                break;
+            }
+            long taken = Math.min(subBalance[1], remaining);
+            if (taken > 0) {
+                jdbcTemplate.update("""
+                                UPDATE card_balance_shards SET balance = balance - :amount
+                                WHERE card_id = :cardId AND shard_no = :shardNo
+                                """,
+                        shardParams(cardId, (int) subBalance[0], taken));
+                remaining -= taken;
+            }
+        }
+        return true;
+    }
+
+    public long total(Long cardId) {
+        Long total = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(balance), 0) FROM card_balance_shards WHERE card_id = :cardId",
+                new MapSqlParameterSource("cardId", cardId),
+                Long.class);
+        return total == null ? 0L : total;
+    }
+
+    /**
+     * Moves a card online to {@code shards} sub-balances, or back to the plain balance column
+     * when {@code shards} is zero. The total is spread evenly so random debits usually hit.
+     *
+     * @return the card's total balance, or empty when the card does not exist
+     */
+    @Transactional
+    public Optional<Long> reshard(Long cardId, int shards) {
+        if (shards < 0 || shards > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 0 and " + MAX_SHARDS);
+        }
+
+        MapSqlParameterSource cardParams = new MapSqlParameterSource("cardId", cardId);
+        List<long[]> current = jdbcTemplate.query(
+                "SELECT COALESCE(balance, 0) AS balance, balance_shards FROM cards WHERE id = :cardId FOR UPDATE",
+                cardParams,
+                (rs, rowNum) -> new long[]{rs.getLong("balance"), rs.getInt("balance_shards")});
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+
+        long total = current.get(0)[1] > 0 ? total(cardId) : current.get(0)[0];
+        jdbcTemplate.update("DELETE FROM card_balance_shards WHERE card_id = :cardId", cardParams);
+
+        if (shards > 0) {
+            SqlParameterSource[] rows = new SqlParameterSource[shards];
+            for (int shardNo = 0; shardNo < shards; shardNo++) {
+                long share = total / shards + (shardNo == 0 ? total % shards : 0);
+                rows[shardNo] = shardParams(cardId, shardNo, share);
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO card_balance_shards (card_id, shard_no, balance) VALUES (:cardId, :shardNo, :amount)",
+                    rows);
+        }
+
+        long balance = shards > 0 ? 0L : total;
+        jdbcTemplate.query("""
+                        UPDATE cards SET balance = :balance, balance_shards = :shards, version = version + 1
+                        WHERE id = :cardId
+                        RETURNING owner_id, status, version
+                        """,
+                new MapSqlParameterSource("cardId", cardId)
+                        .addValue("balance", balance)
+                        .addValue("shards", shards),
+                rs -> {
+                    String status = rs.getString("status");
+                    cardBalanceCache.recordAfterCommit(cardId, rs.getObject("owner_id", UUID.class), balance,
+                            status == null ? null : CardStatus.valueOf(status), shards > 0, rs.getLong("version"));
+                });
+        cardCacheEviction.evict(cardId);
+        return Optional.of(total);
+    }
+
+    private static MapSqlParameterSource shardParams(Long cardId, int shardNo, long amount) {
+        return new MapSqlParameterSource("cardId", cardId)
+                .addValue("shardNo", shardNo)
+                .addValue("amount", amount);
+    }
+}
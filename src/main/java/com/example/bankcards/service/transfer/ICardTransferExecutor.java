@@ -0,0 +1,14 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.response.CardTransferResponseDto;
+
+import java.util.UUID;
+
+public interface ICardTransferExecutor {
+
+    /**
+     * Moves {@code amount} from one card of the owner to another as a single unit of work.
+     * Business rule violations are reported with {@link com.example.bankcards.exception.CardTransferException}.
+     */
+    CardTransferResponseDto transfer(UUID ownerId, Long fromCardId, Long toCardId, long amount);
+}
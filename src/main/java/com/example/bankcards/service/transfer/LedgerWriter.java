@@ -0,0 +1,53 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.entity.enums.LedgerEntryType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Appends the debit and credit rows of transfers to {@code ledger_entries}. Must be called
+ * inside the transaction that changes the balances so the ledger and the balances commit
+ * together; rows are written with one batched insert.
+ */
+@Component
+public class LedgerWriter {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO ledger_entries (transfer_id, card_id, entry_type, amount)
+            VALUES (:transferId, :cardId, :entryType, :amount)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public LedgerWriter(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void recordTransfers(List<Posting> postings) {
+        if (postings.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] rows = new SqlParameterSource[postings.size() * 2];
+        int i = 0;
+        for (Posting posting : postings) {
+            rows[i++] = row(posting.transferId(), posting.fromCardId(), LedgerEntryType.DEBIT, -posting.amount());
+            rows[i++] = row(posting.transferId(), posting.toCardId(), LedgerEntryType.CREDIT, posting.amount());
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    private static SqlParameterSource row(UUID transferId, Long cardId, LedgerEntryType type, long amount) {
+        return new MapSqlParameterSource("transferId", transferId)
+                .addValue("cardId", cardId)
+                .addValue("entryType", type.name())
+                .addValue("amount", amount);
+    }
+
+    public record Posting(UUID transferId, Long fromCardId, Long toCardId, long amount) {
+    }
+}
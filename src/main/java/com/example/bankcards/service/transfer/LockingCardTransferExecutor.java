@@ -0,0 +1,87 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.response.CardTransferResponseDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.repository.CardEntityRepository;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Runs the debit, the credit and their ledger entries in one transaction. Both card rows are locked with
+ * {@code SELECT ... FOR UPDATE} in ascending id order, so two transfers over the same
+ * pair of cards always queue on the same row first and can never deadlock each other.
+ * Lock timeouts, deadlocks and serialization failures are retried with a short backoff.
+ * <p>
+ * A sharded destination card is only share-locked, so credits to a hot card run in parallel
+ * on its sub-balances; if the card is unsharded between the pre-check and the lock the
+ * attempt is retried with an exclusive lock.
+ */
+@Component
+public class LockingCardTransferExecutor implements ICardTransferExecutor {
+
+    private final CardEntityRepository cardEntityRepository;
+    private final CardBalanceShards cardBalanceShards;
+    private final LedgerWriter ledgerWriter;
+    private final CardBalanceCache cardBalanceCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferRetryTemplate retryTemplate;
+
+    public LockingCardTransferExecutor(CardEntityRepository cardEntityRepository,
+                                       CardBalanceShards cardBalanceShards,
+                                       LedgerWriter ledgerWriter,
+                                       CardBalanceCache cardBalanceCache,
+                                       PlatformTransactionManager transactionManager,
+                                       TransferProperties properties) {
+        this.cardEntityRepository = cardEntityRepository;
+        this.cardBalanceShards = cardBalanceShards;
+        this.ledgerWriter = ledgerWriter;
+        this.cardBalanceCache = cardBalanceCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retryTemplate = new TransferRetryTemplate(properties);
+    }
+
+    @Override
+    public CardTransferResponseDto transfer(UUID ownerId, Long fromCardId, Long toCardId, long amount) {
+        TransferRules.requireDistinctCards(fromCardId, toCardId);
+
+        return retryTemplate.execute(() ->
+                transactionTemplate.execute(status -> doTransfer(ownerId, fromCardId, toCardId, amount)));
+    }
+
+    private CardTransferResponseDto doTransfer(UUID ownerId, Long fromCardId, Long toCardId, long amount) {
+        Long firstId = Math.min(fromCardId, toCardId);
+        Long secondId = Math.max(fromCardId, toCardId);
+        boolean shareDestination = cardEntityRepository.findShardedIdsIn(List.of(toCardId)).contains(toCardId);
+
+        CardEntity first = lock(firstId, ownerId, shareDestination && firstId.equals(toCardId));
+        CardEntity second = lock(secondId, ownerId, shareDestination && secondId.equals(toCardId));
+
+        CardEntity fromCard = fromCardId.equals(firstId) ? first : second;
+        CardEntity toCard = fromCardId.equals(firstId) ? second : first;
+
+        if (shareDestination && toCard != null && !toCard.isBalanceSharded()) {
+            throw new CannotAcquireLockException("Destination card was unsharded concurrently");
+        }
+
+        UUID transferId = UUID.randomUUID();
+        CardTransferResponseDto response =
+                TransferRules.apply(transferId, ownerId, fromCard, toCard, amount, cardBalanceShards);
+        ledgerWriter.recordTransfers(List.of(new LedgerWriter.Posting(transferId, fromCardId, toCardId, amount)));
+        cardBalanceCache.recordAfterCommit(fromCard);
+        cardBalanceCache.recordAfterCommit(toCard);
+        return response;
+    }
+
+    private CardEntity lock(Long cardId, UUID ownerId, boolean shared) {
+        return (shared
+                ? cardEntityRepository.findByIdAndOwnerIdForShare(cardId, ownerId)
+                : cardEntityRepository.findByIdAndOwnerIdForUpdate(cardId, ownerId))
+                .orElse(null);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.response.CardTransferResponseDto;
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.exception.CardTransferException;
+import com.example.bankcards.repository.CardCacheEviction;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Fast path that performs the ownership, status and funds checks together with the debit,
+ * the credit and their ledger entries in a single statement, i.e. one round trip and no entity hydration.
+ * Both rows are locked in ascending id order before the guarded update runs; the locked
+ * rows are returned alongside the updated balances so a rejected transfer can be mapped
+ * to the same error responses as {@link LockingCardTransferExecutor}. Transfers touching a
+ * card with a sharded balance are handed over to that executor.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(prefix = "bankcards.transfer", name = "mode", havingValue = "single-statement")
+public class SqlCardTransferExecutor implements ICardTransferExecutor {
+
+    private static final String TRANSFER_SQL = """
+            WITH locked AS (
+                SELECT id, owner_id, status, COALESCE(balance, 0) AS balance, balance_shards
+                FROM cards
+                WHERE id IN (:fromId, :toId)
+                ORDER BY id
+                FOR UPDATE
+            ),
+            moved AS (
+                UPDATE cards c
+                SET balance = COALESCE(c.balance, 0)
+                        + CASE WHEN c.id = :fromId THEN -CAST(:amount AS BIGINT) ELSE CAST(:amount AS BIGINT) END,
+                    version = c.version + 1
+                WHERE c.id IN (:fromId, :toId)
+                  AND (SELECT count(*)
+                       FROM locked l
+                       WHERE l.owner_id = :ownerId
+                         AND l.status IS DISTINCT FROM 'BLOCKED'
+                         AND l.balance_shards = 0
+                         AND (l.id <> :fromId OR l.balance >= :amount)) = 2
+                RETURNING c.id, c.balance, c.version
+            ),
+            posted AS (
+                INSERT INTO ledger_entries (transfer_id, card_id, entry_type, amount)
+                SELECT :transferId, m.id,
+                       CASE WHEN m.id = :fromId THEN 'DEBIT' ELSE 'CREDIT' END,
+                       CASE WHEN m.id = :fromId THEN -CAST(:amount AS BIGINT) ELSE CAST(:amount AS BIGINT) END
+                FROM moved m
+            )
+            SELECT l.id, l.owner_id, l.status, l.balance, l.balance_shards, m.balance AS new_balance,
+                   m.version AS new_version
+            FROM locked l
+            LEFT JOIN moved m ON m.id = l.id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransferRetryTemplate retryTemplate;
+    private final LockingCardTransferExecutor lockingExecutor;
+    private final CardCacheEviction cardCacheEviction;
+    private final CardBalanceCache cardBalanceCache;
+
+    public SqlCardTransferExecutor(NamedParameterJdbcTemplate jdbcTemplate,
+                                   LockingCardTransferExecutor lockingExecutor,
+                                   CardCacheEviction cardCacheEviction,
+                                   CardBalanceCache cardBalanceCache,
+                                   TransferProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lockingExecutor = lockingExecutor;
+        this.cardCacheEviction = cardCacheEviction;
+        this.cardBalanceCache = cardBalanceCache;
+        this.retryTemplate = new TransferRetryTemplate(properties);
+    }
+
+    @Override
+    public CardTransferResponseDto transfer(UUID ownerId, Long fromCardId, Long toCardId, long amount) {
+        TransferRules.requireDistinctCards(fromCardId, toCardId);
+
+        UUID transferId = UUID.randomUUID();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("transferId", transferId)
+                .addValue("fromId", fromCardId)
+                .addValue("toId", toCardId)
+                .addValue("ownerId", ownerId)
+                .addValue("amount", amount);
+
+        List<LockedCard> rows = retryTemplate.execute(() -> jdbcTemplate.query(TRANSFER_SQL, params,
+                (rs, rowNum) -> new LockedCard(
+                        rs.getLong("id"),
+                        rs.getObject("owner_id", UUID.class),
+                        rs.getString("status"),
+                        rs.getLong("balance"),
+                        rs.getInt("balance_shards"),
+                        rs.getObject("new_balance", Long.class),
+                        rs.getObject("new_version", Long.class))));
+
+        Map<Long, LockedCard> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(row.id(), row));
+        LockedCard fromCard = byId.get(fromCardId);
+        LockedCard toCard = byId.get(toCardId);
+
+        if (fromCard != null && toCard != null && fromCard.newBalance() != null && toCard.newBalance() != null) {
+            cardCacheEviction.evict(fromCardId, toCardId);
+            record(fromCard);
+            record(toCard);
+            return CardTransferResponseDto.builder()
+                    .transferId(transferId)
+                    .fromCardId(fromCardId)
+                    .fromBalance(fromCard.newBalance())
+                    .toCardId(toCardId)
+                    .toBalance(toCard.newBalance())
+                    .build();
+        }
+        if (isOwnedSharded(ownerId, fromCard) || isOwnedSharded(ownerId, toCard)) {
+            return lockingExecutor.transfer(ownerId, fromCardId, toCardId, amount);
+        }
+        throw rejection(ownerId, fromCard, toCard, amount);
+    }
+
+    private void record(LockedCard card) {
+        cardBalanceCache.recordAfterCommit(card.id(), card.ownerId(), card.newBalance(),
+                card.status() == null ? null : CardStatus.valueOf(card.status()), false, card.newVersion());
+    }
+
+    private static boolean isOwnedSharded(UUID ownerId, LockedCard card) {
+        return card != null && card.balanceShards() > 0 && ownerId.equals(card.ownerId());
+    }
+
+    private static CardTransferException rejection(UUID ownerId, LockedCard fromCard, LockedCard toCard, long amount) {
+        if (fromCard == null || !ownerId.equals(fromCard.ownerId())) {
+            return new CardTransferException(HttpStatus.NOT_FOUND, "Source card not found");
+        }
+        if (toCard == null || !ownerId.equals(toCard.ownerId())) {
+            return new CardTransferException(HttpStatus.NOT_FOUND, "Destination card not found");
+        }
+        if (CardStatus.BLOCKED.name().equals(fromCard.status())) {
+            return new CardTransferException(HttpStatus.BAD_REQUEST, "Source card is blocked");
+        }
+        if (CardStatus.BLOCKED.name().equals(toCard.status())) {
+            return new CardTransferException(HttpStatus.BAD_REQUEST, "Destination card is blocked");
+        }
+        if (fromCard.balance() < amount) {
+            return new CardTransferException(HttpStatus.BAD_REQUEST, "Insufficient funds");
+        }
+        throw new IllegalStateException("Transfer was not applied although all checks passed");
+    }
+
+    private record LockedCard(long id, UUID ownerId, String status, long balance, int balanceShards, Long newBalance,
+                              Long newVersion) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.bankcards.service.transfer;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bankcards.transfer")
+public class TransferProperties {
+
+    /**
+     * How many times a transfer is attempted when it loses a lock or deadlock race.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Base delay between attempts, multiplied by the attempt number and jittered.
+     */
+    private long retryBackoffMs = 20;
+
+    private Batch batch = new Batch();
+
+    @Getter
+    @Setter
+    public static class Batch {
+
+        /**
+         * Number of single-writer partitions a card id is hashed into. Transfers between
+         * partitions share one additional writer.
+         */
+        private int partitions = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Capacity of each writer's queue; callers are rejected once it is full.
+         */
+        private int queueCapacity = 1024;
+
+        /**
+         * Maximum number of transfers committed in one database transaction.
+         */
+        private int maxBatchSize = 64;
+
+        /**
+         * How long a writer waits for more transfers before committing a partial batch.
+         */
+        private long maxLingerMs = 2;
+
+        /**
+         * How long a caller waits for its transfer to be picked up by a writer.
+         */
+        private long enqueueTimeoutMs = 5000;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bankcards.service.transfer;
+
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a transfer attempt when the database reports a lock timeout, deadlock or
+ * serialization failure (SQLSTATE 55P03, 40P01, 40001), which Spring translates into
+ * {@link ConcurrencyFailureException} subtypes.
+ */
+final class TransferRetryTemplate {
+
+    private final TransferProperties properties;
+
+    TransferRetryTemplate(TransferProperties properties) {
+        this.properties = properties;
+    }
+
+    <T> T execute(Supplier<T> attempt) {
+        int attemptNumber = 1;
+        while (true) {
+            try {
+                return attempt.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attemptNumber >= properties.getMaxAttempts()) {
+                    throw e;
+                }
+                backoff(attemptNumber++);
+            }
+        }
+    }
+
+    private void backoff(int attemptNumber) {
+        long base = properties.getRetryBackoffMs() * attemptNumber;
+        try {
+            Thread.sleep(base + ThreadLocalRandom.current().nextLong(base + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying transfer", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.response.CardTransferResponseDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.exception.CardTransferException;
+import org.springframework.http.HttpStatus;
+
+import java.util.UUID;
+
+/**
+ * Checks and balance mutation shared by the executors that work on locked, managed entities.
+ * Sharded cards are debited and credited through {@link CardBalanceShards}.
+ */
+final class TransferRules {
+
+    private TransferRules() {}
+
+    static void requireDistinctCards(Long fromCardId, Long toCardId) {
+        if (fromCardId.equals(toCardId)) {
+            throw new CardTransferException(HttpStatus.BAD_REQUEST, "Source and destination cards must differ");
+        }
+    }
+
+    static CardTransferResponseDto apply(UUID transferId, UUID ownerId, CardEntity fromCard, CardEntity toCard,
+                                         long amount, CardBalanceShards shards) {
+        if (fromCard == null || !ownerId.equals(fromCard.getOwnerId())) {
+            throw new CardTransferException(HttpStatus.NOT_FOUND, "Source card not found");
+        }
+        if (toCard == null || !ownerId.equals(toCard.getOwnerId())) {
+            throw new CardTransferException(HttpStatus.NOT_FOUND, "Destination card not found");
+        }
+        if (fromCard.getStatus() == CardStatus.BLOCKED) {
+            throw new CardTransferException(HttpStatus.BAD_REQUEST, "Source card is blocked");
+        }
+        if (toCard.getStatus() == CardStatus.BLOCKED) {
+            throw new CardTransferException(HttpStatus.BAD_REQUEST, "Destination card is blocked");
+        }
+
+        if (fromCard.isBalanceSharded()) {
+            if (!shards.debit(fromCard.getId(), fromCard.getBalanceShards(), amount)) {
+                throw new CardTransferException(HttpStatus.BAD_REQUEST, "Insufficient funds");
+            }
+        } else {
+            long fromBalance = fromCard.getBalance() == null ? 0L : fromCard.getBalance();
+            if (fromBalance < amount) {
+                throw new CardTransferException(HttpStatus.BAD_REQUEST, "Insufficient funds");
+            }
+            fromCard.setBalance(fromBalance - amount);
+        }
+
+        if (toCard.isBalanceSharded()) {
+            shards.credit(toCard.getId(), toCard.getBalanceShards(), amount);
+        } else {
+            long toBalance = toCard.getBalance() == null ? 0L : toCard.getBalance();
+            toCard.setBalance(toBalance + amount);
+        }
+
+        return CardTransferResponseDto.builder()
+                .transferId(transferId)
+                .fromCardId(fromCard.getId())
+                .fromBalance(balanceOf(fromCard, shards))
+                .toCardId(toCard.getId())
+                .toBalance(balanceOf(toCard, shards))
+                .build();
+    }
+
+    private static long balanceOf(CardEntity card, CardBalanceShards shards) {
+        return card.isBalanceSharded() ? shards.total(card.getId()) : card.getBalance();
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.bankcards.util;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * AES-256-GCM engine shared by PAN encryption paths. Each thread keeps its own {@link Cipher}
+ * (re-initialised per operation with a fresh IV), so there is no provider lookup per call and no
+ * contention between threads. The text form is {@code base64(iv):base64(ciphertext)}; it is parsed
+ * with a single {@code indexOf} and decoded straight from the string's bytes.
+ */
+public final class AesGcmCipherEngine {
+
+    public static final int IV_LENGTH = 12;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int TAG_LENGTH_BIT = 128;
+    private static final byte SEPARATOR = ':';
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getEncoder();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private final SecretKey secretKey;
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(AesGcmCipherEngine::newCipher);
+
+    public AesGcmCipherEngine(byte[] keyBytes) {
+        if (keyBytes == null || keyBytes.length != 32) {
+            throw new IllegalStateException("Encryption key must be 32 bytes (256 bit)");
+        }
+        this.secretKey = new SecretKeySpec(keyBytes, "AES");
+    }
+
+    public static AesGcmCipherEngine fromBase64Key(String base64Key) {
+        if (base64Key == null || base64Key.isBlank()) {
+            throw new IllegalStateException("Encryption key must be provided");
+        }
+        return new AesGcmCipherEngine(Base64.getDecoder().decode(base64Key));
+    }
+
+    /**
+     * Encrypts into {@code iv || ciphertext+tag}.
+     */
+    public byte[] encrypt(byte[] plainText) {
+        Cipher cipher = ciphers.get();
+        byte[] out = new byte[IV_LENGTH + plainText.length + TAG_LENGTH_BIT / 8];
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        System.arraycopy(iv, 0, out, 0, IV_LENGTH);
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BIT, iv));
+            int written = cipher.doFinal(plainText, 0, plainText.length, out, IV_LENGTH);
+            return written + IV_LENGTH == out.length ? out : Arrays.copyOf(out, IV_LENGTH + written);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error encrypting value", e);
+        }
+    }
+
+    /**
+     * Decrypts {@code iv || ciphertext+tag} from the given slice of {@code data}.
+     */
+    public byte[] decrypt(byte[] data, int offset, int length) {
+        if (length <= IV_LENGTH) {
+            throw new IllegalArgumentException("Invalid encrypted value format");
+        }
+        Cipher cipher = ciphers.get();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BIT, data, offset, IV_LENGTH));
+            return cipher.doFinal(data, offset + IV_LENGTH, length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error decrypting value", e);
+        }
+    }
+
+    public byte[] decrypt(byte[] data) {
+        return decrypt(data, 0, data.length);
+    }
+
+    public String encryptToString(String plainText) {
+        if (plainText == null) {
+            return null;
+        }
+        byte[] sealed = encrypt(plainText.getBytes(StandardCharsets.UTF_8));
+        int ivChars = base64Length(IV_LENGTH);
+        byte[] text = new byte[ivChars + 1 + base64Length(sealed.length - IV_LENGTH)];
+        ByteBuffer target = ByteBuffer.wrap(text);
+        target.put(ENCODER.encode(ByteBuffer.wrap(sealed, 0, IV_LENGTH)));
+        target.put(SEPARATOR);
+        target.put(ENCODER.encode(ByteBuffer.wrap(sealed, IV_LENGTH, sealed.length - IV_LENGTH)));
+        return new String(text, StandardCharsets.ISO_8859_1);
+    }
+
+    public String decryptFromString(String value) {
+        if (value == null) {
+            return null;
+        }
+        int separator = value.indexOf(SEPARATOR);
+        if (separator <= 0 || separator != value.lastIndexOf(SEPARATOR) || separator == value.length() - 1) {
+            throw new IllegalArgumentException("Invalid encrypted value format");
+        }
+        byte[] text = value.getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer iv;
+        ByteBuffer cipherText;
+        try {
+            iv = DECODER.decode(ByteBuffer.wrap(text, 0, separator));
+            cipherText = DECODER.decode(ByteBuffer.wrap(text, separator + 1, text.length - separator - 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid encrypted value format", e);
+        }
+        if (iv.remaining() != IV_LENGTH) {
+            throw new IllegalArgumentException("Invalid encrypted value format");
+        }
+
+        Cipher cipher = ciphers.get();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BIT, iv.array(), 0, IV_LENGTH));
+            byte[] plainText = cipher.doFinal(cipherText.array(), 0, cipherText.remaining());
+            return new String(plainText, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error decrypting value", e);
+        }
+    }
+
+    /**
+     * Decrypts a batch on the calling thread, reusing its cipher for every element. Callers that
+     * need more throughput can split the batch across threads; each gets its own cipher.
+     */
+    public List<String> decryptAllFromStrings(Collection<String> values) {
+        List<String> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(decryptFromString(value));
+        }
+        return result;
+    }
+
+    public List<String> encryptAllToStrings(Collection<String> values) {
+        List<String> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(encryptToString(value));
+        }
+        return result;
+    }
+
+    private static int base64Length(int bytes) {
+        return 4 * ((bytes + 2) / 3);
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException(TRANSFORMATION + " is not available", e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.bankcards.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-size open-addressing hash table from a positive {@code long} key to
+ * {@code (owner, balance, status, version, stamp)}, kept in one direct buffer outside the heap.
+ * Each slot is one 64-byte line guarded by its own sequence lock: writers take it with a CAS,
+ * readers never block and retry only when they raced with a write, so a lookup allocates
+ * nothing. A write is applied only if its version is not older than the stored one, which lets
+ * writers that finish out of order converge on the newest state. Keys are never removed, but a
+ * slot whose stamp is {@code maxAge} older than the stamp being written may be taken over by
+ * another key, so entries nobody refreshed (expired, deleted or sharded cards) make room for new
+ * ones. Only when every slot within {@link #MAX_PROBES} of a key's home slot is live does
+ * {@link #put} refuse it.
+ */
+public final class OffHeapBalanceTable {
+
+    public static final int MAX_PROBES = 16;
+    public static final int MAX_SLOTS = 1 << 24;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final int SLOT_SHIFT = 6;
+    private static final int KEY = 0;
+    private static final int SEQ = 8;
+    private static final int OWNER_HI = 16;
+    private static final int OWNER_LO = 24;
+    private static final int BALANCE = 32;
+    private static final int VERSION = 40;
+    private static final int STAMP = 48;
+    private static final int STATUS = 56;
+
+    private static final long EMPTY = 0L;
+
+    private final ByteBuffer buffer;
+    private final int mask;
+    private final long maxAge;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object[] takeoverLocks = new Object[64];
+
+    /**
+     * A table whose slots are never taken over by another key.
+     */
+    public OffHeapBalanceTable(int slots) {
+        this(slots, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param slots  rounded up to a power of two; each slot takes 64 bytes of direct memory
+     * @param maxAge how much older than a new write's stamp an entry must be before its slot
+     *               can be given to another key, in the unit of the stamps
+     */
+    public OffHeapBalanceTable(int slots, long maxAge) {
+        if (slots < 1 || slots > MAX_SLOTS) {
+            throw new IllegalArgumentException("slots must be between 1 and " + MAX_SLOTS);
+        }
+        if (maxAge <= 0) {
+            throw new IllegalArgumentException("maxAge must be positive");
+        }
+        int capacity = Math.max(MAX_PROBES, Integer.highestOneBit(slots - 1) << 1);
+        this.mask = capacity - 1;
+        this.maxAge = maxAge;
+        this.buffer = ByteBuffer.allocateDirect((capacity << SLOT_SHIFT) + 64).alignedSlice(64);
+        for (int i = 0; i < takeoverLocks.length; i++) {
+            takeoverLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Copies the entry for {@code key} into {@code into}.
+     *
+     * @return {@code false} when the key has never been written or its slot was taken over
+     */
+    public boolean read(long key, Entry into) {
+        int slot = find(key, false);
+        if (slot < 0) {
+            return false;
+        }
+        for (;;) {
+            long seq = (long) LONGS.getAcquire(buffer, slot + SEQ);
+            if (seq == 0) {
+                return false;
+            }
+            if ((seq & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long current = (long) LONGS.get(buffer, slot + KEY);
+            into.ownerMostSigBits = (long) LONGS.get(buffer, slot + OWNER_HI);
+            into.ownerLeastSigBits = (long) LONGS.get(buffer, slot + OWNER_LO);
+            into.balance = (long) LONGS.get(buffer, slot + BALANCE);
+            into.version = (long) LONGS.get(buffer, slot + VERSION);
+            into.stamp = (long) LONGS.get(buffer, slot + STAMP);
+            into.status = (int) (long) LONGS.get(buffer, slot + STATUS);
+            VarHandle.loadLoadFence();
+            if ((long) LONGS.getOpaque(buffer, slot + SEQ) == seq) {
+                return current == key;
+            }
+        }
+    }
+
+    /**
+     * Stores the entry unless a newer version is already present. An equal version overwrites,
+     * which refreshes the stamp of an entry that was reloaded unchanged. A key that is not in the
+     * table takes an empty slot; once none is left within {@link #MAX_PROBES} of its home slot,
+     * it takes over the first slot whose entry is {@code maxAge} older than {@code stamp}.
+     *
+     * @return {@code false} when the table has no room for the key
+     */
+    public boolean put(long key, long ownerMostSigBits, long ownerLeastSigBits, long balance,
+                       int status, long version, long stamp) {
+        for (;;) {
+            int slot = find(key, true);
+            if (slot < 0) {
+                return takeOver(key, ownerMostSigBits, ownerLeastSigBits, balance, status, version, stamp);
+            }
+            if (update(slot, key, ownerMostSigBits, ownerLeastSigBits, balance, status, version, stamp)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Slots that have been claimed by a key; a takeover reuses a slot and does not change it.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return {@code false} when the slot was given to another key after it was found
+     */
+    private boolean update(int slot, long key, long ownerMostSigBits, long ownerLeastSigBits, long balance,
+                           int status, long version, long stamp) {
+        long seq = lock(slot);
+        if ((long) LONGS.get(buffer, slot + KEY) != key) {
+            LONGS.setRelease(buffer, slot + SEQ, seq);
+            return false;
+        }
+        if (seq != 0 && (long) LONGS.get(buffer, slot + VERSION) > version) {
+            LONGS.setRelease(buffer, slot + SEQ, seq);
+            return true;
+        }
+        write(slot, seq, key, ownerMostSigBits, ownerLeastSigBits, balance, status, version, stamp);
+        return true;
+    }
+
+    /**
+     * Runs once every slot around the key's home is taken, so the key can no longer be inserted
+     * into an empty slot concurrently; takeovers of the same home are serialised, which keeps a
+     * key from ending up in two slots.
+     */
+    private boolean takeOver(long key, long ownerMostSigBits, long ownerLeastSigBits, long balance,
+                             int status, long version, long stamp) {
+        int home = home(key);
+        synchronized (takeoverLocks[home & (takeoverLocks.length - 1)]) {
+            for (;;) {
+                int slot = find(key, true);
+                if (slot >= 0) {
+                    if (update(slot, key, ownerMostSigBits, ownerLeastSigBits, balance, status, version, stamp)) {
+                        return true;
+                    }
+                    continue;
+                }
+                slot = firstExpired(home, stamp);
+                if (slot < 0) {
+                    return false;
+                }
+                long seq = lock(slot);
+                if (seq != 0 && expired(slot, stamp)) {
+                    write(slot, seq, key, ownerMostSigBits, ownerLeastSigBits, balance, status, version, stamp);
+                    return true;
+                }
+                // refreshed since the scan
+                LONGS.setRelease(buffer, slot + SEQ, seq);
+            }
+        }
+    }
+
+    private void write(int slot, long seq, long key, long ownerMostSigBits, long ownerLeastSigBits, long balance,
+                       int status, long version, long stamp) {
+        LONGS.set(buffer, slot + KEY, key);
+        LONGS.set(buffer, slot + OWNER_HI, ownerMostSigBits);
+        LONGS.set(buffer, slot + OWNER_LO, ownerLeastSigBits);
+        LONGS.set(buffer, slot + BALANCE, balance);
+        LONGS.set(buffer, slot + VERSION, version);
+        LONGS.set(buffer, slot + STAMP, stamp);
+        LONGS.set(buffer, slot + STATUS, (long) status);
+        LONGS.setRelease(buffer, slot + SEQ, seq + 2);
+    }
+
+    private long lock(int slot) {
+        for (;;) {
+            long seq = (long) LONGS.getVolatile(buffer, slot + SEQ);
+            if ((seq & 1) == 0 && LONGS.compareAndSet(buffer, slot + SEQ, seq, seq + 1)) {
+                return seq;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private boolean expired(int slot, long stamp) {
+        return stamp - (long) LONGS.getOpaque(buffer, slot + STAMP) >= maxAge;
+    }
+
+    private int firstExpired(int home, long stamp) {
+        for (int probe = 0, index = home; probe < MAX_PROBES; probe++, index = (index + 1) & mask) {
+            int slot = index << SLOT_SHIFT;
+            if ((long) LONGS.getAcquire(buffer, slot + SEQ) != 0 && expired(slot, stamp)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The slot holding {@code key}; with {@code claim}, else the first empty slot, claimed for it.
+     */
+    private int find(long key, boolean claim) {
+        for (int probe = 0, index = home(key); probe < MAX_PROBES; probe++, index = (index + 1) & mask) {
+            int slot = index << SLOT_SHIFT;
+            long current = (long) LONGS.getAcquire(buffer, slot + KEY);
+            if (current == key) {
+                return slot;
+            }
+            if (current == EMPTY) {
+                if (!claim) {
+                    return -1;
+                }
+                if (LONGS.compareAndSet(buffer, slot + KEY, EMPTY, key)) {
+                    size.incrementAndGet();
+                    return slot;
+                }
+                if ((long) LONGS.getAcquire(buffer, slot + KEY) == key) {
+                    return slot;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int home(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key must not be " + EMPTY);
+        }
+        long spread = key * 0x9E3779B97F4A7C15L;
+        return (int) (spread ^ (spread >>> 32)) & mask;
+    }
+
+    /**
+     * Reusable holder for {@link #read}; one per reading thread.
+     */
+    public static final class Entry {
+
+        public long ownerMostSigBits;
+        public long ownerLeastSigBits;
+        public long balance;
+        public int status;
+        public long version;
+        public long stamp;
+    }
+}
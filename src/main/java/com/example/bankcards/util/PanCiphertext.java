@@ -0,0 +1,84 @@
+package com.example.bankcards.util;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Binary layout of {@code cards.pan_ciphertext}: {@code [key version][iv][ciphertext + tag]}.
+ * The legacy text column holds the same IV and ciphertext as {@code base64(iv):base64(ct)},
+ * so converting between the two needs no decryption.
+ */
+public final class PanCiphertext {
+
+    public static final int INITIAL_KEY_VERSION = 1;
+
+    public static final int MAX_KEY_VERSION = 255;
+
+    private PanCiphertext() {
+    }
+
+    public static byte[] wrap(int keyVersion, byte[] sealed) {
+        byte[] out = new byte[sealed.length + 1];
+        out[0] = versionByte(keyVersion);
+        System.arraycopy(sealed, 0, out, 1, sealed.length);
+        return out;
+    }
+
+    public static int keyVersion(byte[] value) {
+        requireWellFormed(value);
+        return Byte.toUnsignedInt(value[0]);
+    }
+
+    /**
+     * Decrypts the value with an engine holding the key of {@link #keyVersion(byte[])}.
+     */
+    public static byte[] open(AesGcmCipherEngine engine, byte[] value) {
+        requireWellFormed(value);
+        return engine.decrypt(value, 1, value.length - 1);
+    }
+
+    public static byte[] fromText(String text, int keyVersion) {
+        int separator = text == null ? -1 : text.indexOf(':');
+        if (separator <= 0 || separator != text.lastIndexOf(':')) {
+            throw new IllegalArgumentException("Invalid encrypted value format");
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] iv;
+        byte[] cipherText;
+        try {
+            iv = decoder.decode(text.substring(0, separator));
+            cipherText = decoder.decode(text.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid encrypted value format", e);
+        }
+        if (iv.length != AesGcmCipherEngine.IV_LENGTH || cipherText.length == 0) {
+            throw new IllegalArgumentException("Invalid encrypted value format");
+        }
+        byte[] out = new byte[1 + iv.length + cipherText.length];
+        out[0] = versionByte(keyVersion);
+        System.arraycopy(iv, 0, out, 1, iv.length);
+        System.arraycopy(cipherText, 0, out, 1 + iv.length, cipherText.length);
+        return out;
+    }
+
+    public static String toText(byte[] value) {
+        requireWellFormed(value);
+        Base64.Encoder encoder = Base64.getEncoder();
+        int ivEnd = 1 + AesGcmCipherEngine.IV_LENGTH;
+        return encoder.encodeToString(Arrays.copyOfRange(value, 1, ivEnd))
+                + ":" + encoder.encodeToString(Arrays.copyOfRange(value, ivEnd, value.length));
+    }
+
+    private static byte versionByte(int keyVersion) {
+        if (keyVersion < 1 || keyVersion > MAX_KEY_VERSION) {
+            throw new IllegalArgumentException("Key version must be between 1 and " + MAX_KEY_VERSION);
+        }
+        return (byte) keyVersion;
+    }
+
+    private static void requireWellFormed(byte[] value) {
+        if (value == null || value.length <= 1 + AesGcmCipherEngine.IV_LENGTH) {
+            throw new IllegalArgumentException("Invalid encrypted value format");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.bankcards.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over {@code pan_hash} values. Sized from the expected number of entries
+ * and the target false-positive rate; probes are derived from two 64-bit hashes of the value
+ * (Kirsch-Mitzenmacher double hashing). {@link #mightContain} never returns {@code false} for a
+ * value that was {@link #put}, it only errs towards {@code true}.
+ */
+public final class PanHashBloomFilter {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final AtomicLong insertions = new AtomicLong();
+
+    public PanHashBloomFilter(long expectedEntries, double falsePositiveRate) {
+        if (expectedEntries < 1) {
+            throw new IllegalArgumentException("expectedEntries must be positive");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        double ln2 = Math.log(2);
+        long bitsNeeded = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bitsNeeded + 63) / 64));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * ln2));
+        this.capacity = expectedEntries;
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = fnv1a(value, FNV_OFFSET);
+        long h2 = fmix(fnv1a(value, h1)) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String value) {
+        long h1 = fnv1a(value, FNV_OFFSET);
+        long h2 = fmix(fnv1a(value, h1)) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0) {
+                if (bits.compareAndSet(word, current, current | mask)) {
+                    break;
+                }
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * Number of {@link #put} calls; once it exceeds {@link #capacity()} the false-positive rate
+     * climbs above the configured one.
+     */
+    public long insertions() {
+        return insertions.get();
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    private static long fnv1a(String value, long seed) {
+        long hash = seed;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return fmix(hash);
+    }
+
+    private static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
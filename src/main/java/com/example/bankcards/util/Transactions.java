@@ -0,0 +1,28 @@
+package com.example.bankcards.util;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+/**
+ * Helpers for service methods that run in a {@code @Transactional} boundary but turn failures
+ * into error responses instead of rethrowing them.
+ */
+public final class Transactions {
+
+    private Transactions() {
+    }
+
+    /**
+     * Marks the current transaction for rollback. Needed wherever an exception is caught and
+     * mapped to a response: the interceptor then sees a normal return and would otherwise
+     * commit the partial work, or fail with {@code UnexpectedRollbackException} when a
+     * repository call has already marked the transaction. A no-op outside a transaction.
+     */
+    public static void rollbackOnly() {
+        try {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        } catch (NoTransactionException e) {
+            // called directly, e.g. from a unit test
+        }
+    }
+}
@@ -6,6 +6,16 @@ public record CardGenerationResult(
         String panHash,
         String last4,
         int expiryMonth,
-        int expiryYear
+        int expiryYear,
+        byte[] panCiphertext
 ) {
+
+    public CardGenerationResult(String plainPan,
+                                String encryptedPan,
+                                String panHash,
+                                String last4,
+                                int expiryMonth,
+                                int expiryYear) {
+        this(plainPan, encryptedPan, panHash, last4, expiryMonth, expiryYear, null);
+    }
 }
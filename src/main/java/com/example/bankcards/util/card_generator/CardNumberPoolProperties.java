@@ -0,0 +1,45 @@
+package com.example.bankcards.util.card_generator;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bankcards.pan.pool")
+public class CardNumberPoolProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * BIN prefixes and lengths kept pre-generated; other combinations are generated on demand.
+     */
+    private List<Bin> bins = new ArrayList<>(List.of(new Bin()));
+
+    /**
+     * A refill starts once fewer numbers than this remain for a BIN.
+     */
+    private int lowWatermark = 200;
+
+    /**
+     * A refill tops the BIN up to this many numbers.
+     */
+    private int highWatermark = 1000;
+
+    /**
+     * Numbers generated, checked against {@code cards} and stored per refill transaction.
+     */
+    private int refillBatchSize = 100;
+
+    @Getter
+    @Setter
+    public static class Bin {
+
+        private String prefix = "4";
+
+        private int length = 16;
+    }
+}
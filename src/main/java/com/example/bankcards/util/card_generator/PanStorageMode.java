@@ -0,0 +1,19 @@
+package com.example.bankcards.util.card_generator;
+
+/**
+ * Which PAN column new and migrated cards use. {@code DUAL} is the transitional mode that keeps
+ * the legacy text column populated next to the binary one.
+ */
+public enum PanStorageMode {
+    TEXT,
+    DUAL,
+    BINARY;
+
+    public boolean writesText() {
+        return this != BINARY;
+    }
+
+    public boolean writesBinary() {
+        return this != TEXT;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.bankcards.util.card_generator;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bankcards.pan")
+public class PanStorageProperties {
+
+    private PanStorageMode storage = PanStorageMode.DUAL;
+
+    private Backfill backfill = new Backfill();
+
+    @Getter
+    @Setter
+    public static class Backfill {
+
+        private boolean enabled = true;
+
+        /**
+         * In {@code binary} mode, also empty {@code pan_encrypted} of converted cards. Off by
+         * default: the text column is the only copy a rollback to the text-only schema can use.
+         */
+        private boolean clearText = false;
+
+        /**
+         * Rows rewritten per transaction; one batch runs per scheduler tick.
+         */
+        private int batchSize = 1000;
+    }
+}
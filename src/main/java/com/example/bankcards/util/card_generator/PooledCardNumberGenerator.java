@@ -0,0 +1,32 @@
+package com.example.bankcards.util.card_generator;
+
+import com.example.bankcards.service.pan.CardNumberPool;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serves card numbers from {@link CardNumberPool} and generates on the spot only when the pool
+ * has nothing for the requested BIN.
+ */
+@Primary
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "bankcards.pan.pool", name = "enabled", havingValue = "true")
+public class PooledCardNumberGenerator implements ICardNumberGenerator {
+
+    private final CardNumberPool pool;
+    private final SecureCardNumberGenerator generator;
+
+    @Override
+    public CardGenerationResult generate() {
+        return generate("4", 16);
+    }
+
+    @Override
+    public CardGenerationResult generate(String binPrefix, int length) {
+        return pool.take(binPrefix, length)
+                .orElseGet(() -> generator.generate(binPrefix, length));
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.bankcards.util.card_generator;
 
-import com.example.bankcards.util.AesGcmAttributeConverter;
+import com.example.bankcards.service.pan.PanHashIndex;
+import com.example.bankcards.util.PanCiphertext;
+import com.example.bankcards.util.pan_key.EnvironmentPanKeyProvider;
+import com.example.bankcards.util.pan_key.IPanKeyProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
@@ -13,11 +17,33 @@ import java.util.Objects;
 @Component
 public class SecureCardNumberGenerator implements ICardNumberGenerator {
 
-    private final AesGcmAttributeConverter converter;
+    private final IPanKeyProvider keyProvider;
+    private final PanStorageMode storageMode;
+    private final PanHashIndex hashIndex;
 
     public SecureCardNumberGenerator(Environment environment) {
-        String base64Key = resolveKey(environment);
-        this.converter = new AesGcmAttributeConverter(base64Key);
+        this(environment, new PanStorageProperties());
+    }
+
+    public SecureCardNumberGenerator(Environment environment, PanStorageProperties storageProperties) {
+        this(new EnvironmentPanKeyProvider(environment), storageProperties);
+    }
+
+    public SecureCardNumberGenerator(IPanKeyProvider keyProvider, PanStorageProperties storageProperties) {
+        this(keyProvider, storageProperties, null);
+    }
+
+    @Autowired
+    public SecureCardNumberGenerator(IPanKeyProvider keyProvider,
+                                     PanStorageProperties storageProperties,
+                                     PanHashIndex hashIndex) {
+        this.keyProvider = keyProvider;
+        this.storageMode = storageProperties.getStorage();
+        this.hashIndex = hashIndex;
+        if (storageMode == PanStorageMode.TEXT && keyProvider.currentVersion() != PanCiphertext.INITIAL_KEY_VERSION) {
+            throw new IllegalStateException("The text PAN column cannot carry a key version; "
+                    + "use bankcards.pan.storage=dual or binary with rotated keys");
+        }
     }
 
     @Override
@@ -27,9 +53,43 @@ public class SecureCardNumberGenerator implements ICardNumberGenerator {
 
     @Override
     public CardGenerationResult generate(String binPrefix, int length) {
-        String plainPan = CardNumberGenerator.generateCardNumber(binPrefix, length);
-        String encrypted = converter.convertToDatabaseColumn(plainPan);
-        String hash = hashPan(plainPan);
+        String plainPan;
+        String hash;
+        int attempt = 0;
+        // probable collisions are regenerated before paying for encryption
+        do {
+            plainPan = CardNumberGenerator.generateCardNumber(binPrefix, length);
+            hash = hashPan(plainPan);
+        } while (hashIndex != null && !hashIndex.claim(hash, ++attempt));
+
+        int keyVersion = keyProvider.currentVersion();
+        byte[] ciphertext = PanCiphertext.wrap(keyVersion,
+                keyProvider.engine(keyVersion).encrypt(plainPan.getBytes(StandardCharsets.UTF_8)));
+        return assemble(plainPan, ciphertext, hash);
+    }
+
+    /**
+     * The key version {@link #generate(String, int)} encrypts new numbers with.
+     */
+    public int currentKeyVersion() {
+        return keyProvider.currentVersion();
+    }
+
+    /**
+     * Rebuilds the result for a number generated earlier and kept only as its binary ciphertext,
+     * writing the columns the current storage mode expects and a fresh expiry date.
+     */
+    public CardGenerationResult restore(byte[] ciphertext, String panHash) {
+        byte[] plain = PanCiphertext.open(keyProvider.engine(PanCiphertext.keyVersion(ciphertext)), ciphertext);
+        return assemble(new String(plain, StandardCharsets.UTF_8), ciphertext, panHash);
+    }
+
+    private CardGenerationResult assemble(String plainPan, byte[] ciphertext, String hash) {
+        // the legacy text form has no room for a key version, so it is only written for version 1
+        String encrypted = storageMode.writesText()
+                && PanCiphertext.keyVersion(ciphertext) == PanCiphertext.INITIAL_KEY_VERSION
+                ? PanCiphertext.toText(ciphertext)
+                : null;
         String last4 = plainPan.substring(plainPan.length() - 4);
         YearMonth expiry = YearMonth.now().plusYears(3);
 
@@ -39,27 +99,11 @@ public class SecureCardNumberGenerator implements ICardNumberGenerator {
                 hash,
                 last4,
                 expiry.getMonthValue(),
-                expiry.getYear()
+                expiry.getYear(),
+                storageMode.writesBinary() || encrypted == null ? ciphertext : null
         );
     }
 
-    private static String resolveKey(Environment environment) {
-        String key = null;
-        if (environment != null) {
-            key = environment.getProperty("PAN_ENC_KEY_BASE64");
-            if (key == null) {
-                key = environment.getProperty("pan.enc.key-base64");
-            }
-        }
-        if (key == null || key.isBlank()) {
-            key = System.getenv("PAN_ENC_KEY_BASE64");
-        }
-        if (key == null || key.isBlank()) {
-            throw new IllegalStateException("PAN_ENC_KEY_BASE64 must be provided for card encryption");
-        }
-        return key;
-    }
-
     private static String hashPan(String pan) {
         Objects.requireNonNull(pan, "pan cannot be null");
         try {
@@ -0,0 +1,48 @@
+package com.example.bankcards.util.pan_key;
+
+import com.example.bankcards.util.AesGcmCipherEngine;
+import com.example.bankcards.util.PanCiphertext;
+import org.springframework.core.env.Environment;
+
+/**
+ * Single key taken from {@code PAN_ENC_KEY_BASE64}; it is version 1, the version every legacy
+ * ciphertext was written with.
+ */
+public class EnvironmentPanKeyProvider implements IPanKeyProvider {
+
+    private final AesGcmCipherEngine engine;
+
+    public EnvironmentPanKeyProvider(Environment environment) {
+        this.engine = AesGcmCipherEngine.fromBase64Key(resolveKey(environment));
+    }
+
+    @Override
+    public int currentVersion() {
+        return PanCiphertext.INITIAL_KEY_VERSION;
+    }
+
+    @Override
+    public AesGcmCipherEngine engine(int version) {
+        if (version != PanCiphertext.INITIAL_KEY_VERSION) {
+            throw new IllegalStateException("Unknown PAN key version " + version);
+        }
+        return engine;
+    }
+
+    private static String resolveKey(Environment environment) {
+        String key = null;
+        if (environment != null) {
+            key = environment.getProperty("PAN_ENC_KEY_BASE64");
+            if (key == null) {
+                key = environment.getProperty("pan.enc.key-base64");
+            }
+        }
+        if (key == null || key.isBlank()) {
+            key = System.getenv("PAN_ENC_KEY_BASE64");
+        }
+        if (key == null || key.isBlank()) {
+            throw new IllegalStateException("PAN_ENC_KEY_BASE64 must be provided for card encryption");
+        }
+        return key;
+    }
+}
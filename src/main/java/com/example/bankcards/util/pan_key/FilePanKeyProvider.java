@@ -0,0 +1,96 @@
+package com.example.bankcards.util.pan_key;
+
+import com.example.bankcards.util.AesGcmCipherEngine;
+import com.example.bankcards.util.PanCiphertext;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Local stand-in for a KMS. The keyring file stores data keys wrapped (AES-GCM, {@code iv || ct})
+ * under a key-encryption key that never touches the disk:
+ * <pre>
+ * current=2
+ * key.1=base64(wrapped data key 1)
+ * key.2=base64(wrapped data key 2)
+ * </pre>
+ * Data keys are unwrapped once at startup and kept only in memory.
+ */
+public class FilePanKeyProvider implements IPanKeyProvider {
+
+    private static final String KEY_PREFIX = "key.";
+
+    private final int currentVersion;
+    private final Map<Integer, AesGcmCipherEngine> engines;
+
+    public FilePanKeyProvider(Path keyringFile, String kekBase64) {
+        AesGcmCipherEngine kek = AesGcmCipherEngine.fromBase64Key(kekBase64);
+        Properties keyring = load(keyringFile);
+
+        Map<Integer, AesGcmCipherEngine> unwrapped = new HashMap<>();
+        for (String name : keyring.stringPropertyNames()) {
+            if (!name.startsWith(KEY_PREFIX)) {
+                continue;
+            }
+            int version = parseVersion(name.substring(KEY_PREFIX.length()));
+            byte[] wrapped = Base64.getDecoder().decode(keyring.getProperty(name).trim());
+            unwrapped.put(version, new AesGcmCipherEngine(kek.decrypt(wrapped)));
+        }
+
+        this.currentVersion = parseVersion(keyring.getProperty("current", ""));
+        if (!unwrapped.containsKey(currentVersion)) {
+            throw new IllegalStateException("Keyring has no data key for current version " + currentVersion);
+        }
+        this.engines = Map.copyOf(unwrapped);
+    }
+
+    /**
+     * Wraps a data key for inclusion in a keyring file.
+     */
+    public static String wrapDataKey(String kekBase64, byte[] dataKey) {
+        return Base64.getEncoder().encodeToString(AesGcmCipherEngine.fromBase64Key(kekBase64).encrypt(dataKey));
+    }
+
+    @Override
+    public int currentVersion() {
+        return currentVersion;
+    }
+
+    @Override
+    public AesGcmCipherEngine engine(int version) {
+        AesGcmCipherEngine engine = engines.get(version);
+        if (engine == null) {
+            throw new IllegalStateException("Unknown PAN key version " + version);
+        }
+        return engine;
+    }
+
+    private static Properties load(Path keyringFile) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(keyringFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read PAN keyring " + keyringFile, e);
+        }
+        return properties;
+    }
+
+    private static int parseVersion(String value) {
+        try {
+            int version = Integer.parseInt(value.trim());
+            if (version < 1 || version > PanCiphertext.MAX_KEY_VERSION) {
+                throw new IllegalStateException("Key version must be between 1 and " + PanCiphertext.MAX_KEY_VERSION);
+            }
+            return version;
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid key version in PAN keyring: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.util.pan_key;
+
+import com.example.bankcards.util.AesGcmCipherEngine;
+
+/**
+ * Source of versioned PAN data keys. New ciphertexts are written with {@link #currentVersion()};
+ * existing ones are opened with the engine of the version stored in their first byte.
+ */
+public interface IPanKeyProvider {
+
+    int currentVersion();
+
+    /**
+     * @throws IllegalStateException when the version is unknown to this provider
+     */
+    AesGcmCipherEngine engine(int version);
+
+    default AesGcmCipherEngine currentEngine() {
+        return engine(currentVersion());
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.util.pan_key;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bankcards.pan.keys")
+public class PanKeyProperties {
+
+    /**
+     * Keyring with wrapped data keys; when unset the single PAN_ENC_KEY_BASE64 key is used.
+     */
+    private String file;
+
+    private String kekBase64;
+}
@@ -0,0 +1,79 @@
+package com.example.bankcards;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application without a web server for JMH benchmarks that need a database. It runs
+ * against the PostgreSQL named by {@code BENCH_DB_URL} (plus {@code BENCH_DB_USER} /
+ * {@code BENCH_DB_PASSWORD}), which Liquibase migrates on startup. Benchmarks seed their own rows
+ * and leave them behind, so point it at a disposable database.
+ */
+public final class BenchmarkApplication {
+
+    private static final String PAN_KEY = "q9vLhGmQ0n5dC8Zp1xR7tYw3eJ6uK2sA4bN0fH8iM5o=";
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * @param properties extra {@code name=value} properties, e.g. a feature switched on or off
+     */
+    public static ConfigurableApplicationContext start(String... properties) {
+        return startOn("BENCH_DB", properties);
+    }
+
+    /**
+     * Same as {@link #start(String...)} against the database named by {@code <prefix>_URL},
+     * {@code <prefix>_USER} and {@code <prefix>_PASSWORD}.
+     */
+    public static ConfigurableApplicationContext startOn(String prefix, String... properties) {
+        String url = System.getenv(prefix + "_URL");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException(prefix + "_URL must point at a disposable PostgreSQL database");
+        }
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.profiles.active=bench",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + System.getenv().getOrDefault(prefix + "_USER", "postgres"),
+                "--spring.datasource.password=" + System.getenv().getOrDefault(prefix + "_PASSWORD", ""),
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--PAN_ENC_KEY_BASE64=" + PAN_KEY,
+                "--bankcards.pan.backfill.enabled=false"));
+        for (String property : properties) {
+            arguments.add("--" + property);
+        }
+        return new SpringApplicationBuilder(BankCardsApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(String[]::new));
+    }
+
+    /**
+     * Inserts a client with {@code cards} active cards holding {@code balance} each and returns the
+     * client id. Card numbers are random placeholders; nothing here decrypts them.
+     */
+    public static UUID seedClient(JdbcTemplate jdbcTemplate, int cards, long balance) {
+        UUID clientId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO clients (id, login, password) VALUES (?, ?, 'x')",
+                clientId, "bench-" + clientId);
+        jdbcTemplate.update("""
+                INSERT INTO cards (id, pan_encrypted, pan_ciphertext, last4, pan_hash, owner_id, status, balance,
+                                   expiry_month, expiry_year, version)
+                SELECT nextval('cards_seq'), repeat('x', 1024), sha256(('bench-' || g)::bytea), lpad(g::text, 4, '0'),
+                       md5(? || g), ?, 'ACTIVE', ?, 12, 2030, 0
+                FROM generate_series(1, ?) g
+                """, clientId.toString(), clientId, balance, cards);
+        return clientId;
+    }
+
+    public static List<Long> cardIds(JdbcTemplate jdbcTemplate, UUID ownerId) {
+        return jdbcTemplate.queryForList("SELECT id FROM cards WHERE owner_id = ? ORDER BY id", Long.class, ownerId);
+    }
+}
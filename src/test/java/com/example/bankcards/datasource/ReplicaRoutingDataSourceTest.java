@@ -0,0 +1,215 @@
+package com.example.bankcards.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replicaOne;
+    @Mock
+    private DataSource replicaTwo;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replicaOne);
+        replicas.put("replica-2", replicaTwo);
+        routing = new ReplicaRoutingDataSource(primary, replicas, meterRegistry);
+    }
+
+    @AfterEach
+    void clear() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    @DisplayName("Read-only connections are spread over the replicas round-robin")
+    void readOnly_roundRobinOverReplicas() throws Exception {
+        Connection first = mock(Connection.class);
+        Connection second = mock(Connection.class);
+        when(replicaOne.getConnection()).thenReturn(first);
+        when(replicaTwo.getConnection()).thenReturn(second);
+
+        assertThat(routing.getConnection()).isSameAs(first);
+        assertThat(routing.getConnection()).isSameAs(second);
+        assertThat(routing.getConnection()).isSameAs(first);
+
+        assertThat(meterRegistry.counter("datasource.read.routing", "pool", "replica-1").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("datasource.read.routing", "pool", "replica-2").count()).isEqualTo(1);
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    @DisplayName("A request that must see its own writes reads from the primary, marked read-only")
+    void readYourWrites_readsFromPrimary() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(connection);
+        ReadYourWrites.requirePrimary();
+
+        assertThat(routing.getConnection()).isSameAs(connection);
+
+        verify(connection).setReadOnly(true);
+        verify(replicaOne, never()).getConnection();
+        assertThat(meterRegistry.counter("datasource.read.routing", "pool", "primary").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("The lazy proxy sends read-only work to the replicas and everything else to the primary")
+    void lazyProxy_routesByReadOnlyFlag() throws Exception {
+        Connection primaryConnection = mock(Connection.class);
+        Connection replicaConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replicaOne.getConnection()).thenReturn(replicaConnection);
+        when(primaryConnection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        when(replicaConnection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(primary);
+        proxy.setReadOnlyDataSource(routing);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+
+        try (Connection read = proxy.getConnection()) {
+            read.setReadOnly(true);
+            read.prepareStatement("SELECT 1");
+        }
+        try (Connection write = proxy.getConnection()) {
+            write.prepareStatement("UPDATE cards SET balance = 0");
+        }
+
+        verify(replicaConnection).prepareStatement("SELECT 1");
+        verify(primaryConnection).prepareStatement("UPDATE cards SET balance = 0");
+    }
+
+    @Test
+    @DisplayName("A mutating request reads from the primary and leaves a cookie that keeps the next reads there")
+    void filter_stickyAfterMutation() throws Exception {
+        ReadReplicaProperties properties = new ReadReplicaProperties();
+        properties.setStickyWindow(Duration.ofSeconds(5));
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(properties, Clock.fixed(NOW, ZoneOffset.UTC),
+                request -> request.getHeader("Authorization"));
+
+        AtomicBoolean primaryDuringPost = new AtomicBoolean();
+        MockHttpServletRequest post = new MockHttpServletRequest("POST", "/user/cards/transfer");
+        MockHttpServletResponse postResponse = new MockHttpServletResponse();
+        filter.doFilter(post, postResponse, new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response) {
+                primaryDuringPost.set(ReadYourWrites.isPrimaryRequired());
+            }
+        });
+
+        assertThat(primaryDuringPost).isTrue();
+        assertThat(ReadYourWrites.isPrimaryRequired()).isFalse();
+        Cookie cookie = postResponse.getCookie(properties.getCookieName());
+        assertThat(cookie).isNotNull();
+        assertThat(cookie.getValue()).isEqualTo(Long.toString(NOW.plusSeconds(5).toEpochMilli()));
+
+        assertThat(primaryDuringGet(filter, null, cookie)).isTrue();
+        assertThat(primaryDuringGet(filter, null,
+                new Cookie(properties.getCookieName(), Long.toString(NOW.minusMillis(1).toEpochMilli())))).isFalse();
+        assertThat(primaryDuringGet(filter, null, null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("A mutating request keeps the same principal on the primary without the cookie, other principals are unaffected")
+    void filter_stickyPerPrincipal() throws Exception {
+        ReadReplicaProperties properties = new ReadReplicaProperties();
+        properties.setStickyWindow(Duration.ofSeconds(5));
+        MutableClock clock = new MutableClock(NOW);
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(properties, clock,
+                request -> request.getHeader("Authorization"));
+
+        MockHttpServletRequest post = new MockHttpServletRequest("POST", "/user/cards/transfer");
+        post.addHeader("Authorization", "alice");
+        filter.doFilter(post, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(primaryDuringGet(filter, "alice", null)).isTrue();
+        assertThat(primaryDuringGet(filter, "bob", null)).isFalse();
+
+        clock.instant = NOW.plusSeconds(5);
+        assertThat(primaryDuringGet(filter, "alice", null)).isFalse();
+    }
+
+    private static boolean primaryDuringGet(ReadYourWritesFilter filter, String principal, Cookie cookie)
+            throws Exception {
+        AtomicBoolean primary = new AtomicBoolean();
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/user/cards/1/balance");
+        if (principal != null) {
+            get.addHeader("Authorization", principal);
+        }
+        if (cookie != null) {
+            get.setCookies(cookie);
+        }
+        filter.doFilter(get, new MockHttpServletResponse(), new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response) {
+                primary.set(ReadYourWrites.isPrimaryRequired());
+            }
+        });
+        return primary.get();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.bankcards.idempotency;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyKeyFilterTest {
+
+    private static final String TRANSFER = "{\"fromCardId\":1,\"toCardId\":2,\"amount\":100}";
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    private IdempotencyKeyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new IdempotencyKeyFilter(idempotencyStore, new IdempotencyProperties());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("user", null, List.of()));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("first request: the chain still sees the body and the response is stored with its fingerprint")
+    void firstRequestStoresFingerprint() throws Exception {
+        when(idempotencyStore.reserve(anyString())).thenReturn(IdempotencyStore.Reservation.acquired());
+        AtomicReference<String> seenBody = new AtomicReference<>();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(transfer(TRANSFER), response, (request, chainResponse) -> {
+            seenBody.set(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            ((HttpServletResponse) chainResponse).setStatus(200);
+        });
+
+        assertThat(seenBody.get()).isEqualTo(TRANSFER);
+        ArgumentCaptor<StoredResponse> stored = ArgumentCaptor.forClass(StoredResponse.class);
+        verify(idempotencyStore).complete(anyString(), stored.capture());
+        assertThat(stored.getValue().requestHash()).hasSize(64);
+    }
+
+    @Test
+    @DisplayName("repeat: the same body is replayed, a different body is rejected with 422")
+    void repeatIsReplayedOnlyForTheSameBody() throws Exception {
+        when(idempotencyStore.reserve(anyString())).thenReturn(IdempotencyStore.Reservation.acquired());
+        filter.doFilter(transfer(TRANSFER), new MockHttpServletResponse(), (request, response) ->
+                ((HttpServletResponse) response).setStatus(200));
+        ArgumentCaptor<StoredResponse> stored = ArgumentCaptor.forClass(StoredResponse.class);
+        verify(idempotencyStore).complete(anyString(), stored.capture());
+        when(idempotencyStore.reserve(anyString())).thenReturn(IdempotencyStore.Reservation.replay(stored.getValue()));
+
+        MockHttpServletResponse replayed = new MockHttpServletResponse();
+        MockFilterChain replayChain = new MockFilterChain();
+        filter.doFilter(transfer(TRANSFER), replayed, replayChain);
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain rejectedChain = new MockFilterChain();
+        filter.doFilter(transfer(TRANSFER.replace("100", "900")), rejected, rejectedChain);
+
+        assertThat(replayed.getStatus()).isEqualTo(200);
+        assertThat(replayed.getHeader(IdempotencyKeyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(replayChain.getRequest()).isNull();
+        assertThat(rejected.getStatus()).isEqualTo(422);
+        assertThat(rejectedChain.getRequest()).isNull();
+    }
+
+    @Test
+    @DisplayName("oversized body: rejected with 413 by its Content-Length or, when chunked, after reading one byte past the limit")
+    void oversizedBodyIsRejected() throws Exception {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setMaxRequestBodyBytes(TRANSFER.length() - 1);
+        IdempotencyKeyFilter limited = new IdempotencyKeyFilter(idempotencyStore, properties);
+
+        MockHttpServletResponse declared = new MockHttpServletResponse();
+        MockFilterChain declaredChain = new MockFilterChain();
+        limited.doFilter(transfer(TRANSFER), declared, declaredChain);
+
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/user/card/transfer") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.addHeader(IdempotencyKeyFilter.IDEMPOTENCY_KEY_HEADER, "key-1");
+        chunked.setContent(TRANSFER.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        MockFilterChain readChain = new MockFilterChain();
+        limited.doFilter(chunked, read, readChain);
+
+        assertThat(declared.getStatus()).isEqualTo(413);
+        assertThat(declaredChain.getRequest()).isNull();
+        assertThat(read.getStatus()).isEqualTo(413);
+        assertThat(readChain.getRequest()).isNull();
+        verifyNoInteractions(idempotencyStore);
+    }
+
+    private static MockHttpServletRequest transfer(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/user/card/transfer");
+        request.addHeader(IdempotencyKeyFilter.IDEMPOTENCY_KEY_HEADER, "key-1");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.bankcards.idempotency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+
+    private static final String KEY = "key-hash";
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setWaitTimeout(Duration.ofSeconds(5));
+        store = new IdempotencyStore(jdbcTemplate, properties);
+    }
+
+    @Test
+    @DisplayName("reserve: a concurrent duplicate waits for the first request and replays its response")
+    void reserve_concurrentDuplicateReplaysFirstResponse() throws Exception {
+        when(jdbcTemplate.update(startsWith("INSERT INTO idempotency_keys"), any(SqlParameterSource.class))).thenReturn(1);
+        when(jdbcTemplate.update(contains("SET status = 'COMPLETED'"), any(SqlParameterSource.class))).thenReturn(1);
+
+        assertThat(store.reserve(KEY).kind()).isEqualTo(IdempotencyStore.Reservation.Kind.ACQUIRED);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<IdempotencyStore.Reservation> duplicate = pool.submit(() -> store.reserve(KEY));
+            Thread.sleep(50);
+            assertThat(duplicate.isDone()).isFalse();
+
+            StoredResponse response = new StoredResponse("request-hash", 200, "application/json",
+                    "{\"ok\":true}".getBytes(StandardCharsets.UTF_8));
+            store.complete(KEY, response);
+
+            IdempotencyStore.Reservation reservation = duplicate.get(5, TimeUnit.SECONDS);
+            assertThat(reservation.kind()).isEqualTo(IdempotencyStore.Reservation.Kind.REPLAY);
+            assertThat(reservation.response()).isSameAs(response);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(store.reserve(KEY).kind()).isEqualTo(IdempotencyStore.Reservation.Kind.REPLAY);
+        verify(jdbcTemplate, times(1)).update(startsWith("INSERT INTO idempotency_keys"), any(SqlParameterSource.class));
+    }
+
+    @Test
+    @DisplayName("reserve: a key completed on another instance is replayed from the database")
+    @SuppressWarnings("unchecked")
+    void reserve_completedElsewhereIsReplayedFromDatabase() throws Exception {
+        StoredResponse stored = new StoredResponse("request-hash", 201, "application/json", new byte[]{1});
+        when(jdbcTemplate.update(startsWith("INSERT INTO idempotency_keys"), any(SqlParameterSource.class))).thenReturn(0);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of(stored));
+
+        IdempotencyStore.Reservation reservation = store.reserve(KEY);
+
+        assertThat(reservation.kind()).isEqualTo(IdempotencyStore.Reservation.Kind.REPLAY);
+        assertThat(reservation.response()).isSameAs(stored);
+    }
+
+    @Test
+    @DisplayName("reserve: a key still leased by another instance is reported as busy")
+    @SuppressWarnings("unchecked")
+    void reserve_leasedElsewhereIsBusy() throws Exception {
+        when(jdbcTemplate.update(startsWith("INSERT INTO idempotency_keys"), any(SqlParameterSource.class))).thenReturn(0);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of());
+
+        assertThat(store.reserve(KEY).kind()).isEqualTo(IdempotencyStore.Reservation.Kind.BUSY);
+    }
+
+    @Test
+    @DisplayName("release: waiting duplicates retry and may take the key over")
+    void release_letsDuplicateRetry() throws Exception {
+        when(jdbcTemplate.update(startsWith("INSERT INTO idempotency_keys"), any(SqlParameterSource.class))).thenReturn(1);
+        when(jdbcTemplate.update(startsWith("DELETE FROM idempotency_keys"), any(SqlParameterSource.class))).thenReturn(1);
+
+        assertThat(store.reserve(KEY).kind()).isEqualTo(IdempotencyStore.Reservation.Kind.ACQUIRED);
+        CompletableFuture<IdempotencyStore.Reservation> duplicate = CompletableFuture.supplyAsync(() -> {
+            try {
+                return store.reserve(KEY);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        store.release(KEY);
+
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).kind()).isEqualTo(IdempotencyStore.Reservation.Kind.ACQUIRED);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardEntity;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardCacheEvictionTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache cache;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("evict: outside a transaction the cards are evicted once, right away")
+    void evict_withoutTransaction() {
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        CardCacheEviction eviction = new CardCacheEviction(entityManagerFactory);
+
+        eviction.evict(1L, 2L);
+
+        verify(cache).evict(CardEntity.class, 1L);
+        verify(cache).evict(CardEntity.class, 2L);
+        verifyNoMoreInteractions(cache);
+    }
+
+    @Test
+    @DisplayName("evict: inside a transaction the cards are evicted again once it completes")
+    void evict_againAfterCompletion() {
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        CardCacheEviction eviction = new CardCacheEviction(entityManagerFactory);
+        TransactionSynchronizationManager.initSynchronization();
+
+        eviction.evict(7L);
+        verify(cache, times(1)).evict(CardEntity.class, 7L);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        verify(cache, times(2)).evict(CardEntity.class, 7L);
+    }
+}
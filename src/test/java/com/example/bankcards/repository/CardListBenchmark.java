@@ -0,0 +1,84 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.BenchmarkApplication;
+import com.example.bankcards.dto.response.CardResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of a client's card list. {@code entities} is the read the list endpoints used before,
+ * full managed {@code CardEntity} rows including both PAN columns; {@code projections} reads the
+ * {@link com.example.bankcards.repository.projection.CardSummaryView} columns the response needs.
+ * Both run in a read-only transaction, as the services do. {@code -prof gc} reports the
+ * allocation per page ({@code gc.alloc.rate.norm}). Needs {@code BENCH_DB_URL}, see
+ * {@link BenchmarkApplication}.
+ * <p>
+ * {@code mvn -P benchmark test -Djmh.args="CardListBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardListBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private CardEntityRepository cardEntityRepository;
+    private TransactionTemplate readOnly;
+    private UUID ownerId;
+    private PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        cardEntityRepository = context.getBean(CardEntityRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        ownerId = BenchmarkApplication.seedClient(context.getBean(JdbcTemplate.class), pageSize, 0L);
+        pageRequest = PageRequest.of(0, pageSize, Sort.by("id").ascending());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CardResponseDto> entities() {
+        return readOnly.execute(status -> cardEntityRepository.findByOwnerId(ownerId, pageRequest)
+                .map(CardResponseDto::from)
+                .getContent());
+    }
+
+    @Benchmark
+    public List<CardResponseDto> projections() {
+        return readOnly.execute(status -> cardEntityRepository.findSummariesByOwnerId(ownerId, pageRequest)
+                .map(CardResponseDto::from)
+                .getContent());
+    }
+}
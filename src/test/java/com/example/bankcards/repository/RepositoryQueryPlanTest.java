@@ -0,0 +1,209 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.BenchmarkApplication;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Runs each repository query through Hibernate against a local PostgreSQL, captures the SQL it
+ * generates with a {@link StatementInspector} and fails when the generic plan of any of those
+ * statements, the one a cached prepared statement ends up with, picks a sequential scan. The
+ * database is migrated by the application on startup and seeded inside a transaction that is
+ * rolled back afterwards. Point
+ * {@code EXPLAIN_DB_URL} (plus {@code EXPLAIN_DB_USER} / {@code EXPLAIN_DB_PASSWORD}) at a
+ * disposable database to run it.
+ */
+@EnabledIfEnvironmentVariable(named = "EXPLAIN_DB_URL", matches = ".+")
+class RepositoryQueryPlanTest {
+
+    private static final Map<String, List<String>> PLANS = new LinkedHashMap<>();
+
+    private static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void explainRepositoryQueries() {
+        context = BenchmarkApplication.startOn("EXPLAIN_DB",
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                        + CapturingStatementInspector.class.getName());
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        CardEntityRepository cards = context.getBean(CardEntityRepository.class);
+        ClientEntityRepository clients = context.getBean(ClientEntityRepository.class);
+        ApplicationEntityRepository applications = context.getBean(ApplicationEntityRepository.class);
+        LedgerEntryRepository ledger = context.getBean(LedgerEntryRepository.class);
+        EntityManagerFactory entityManagerFactory = context.getBean(EntityManagerFactory.class);
+
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            seed(jdbcTemplate);
+            jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+            UUID owner = jdbcTemplate.queryForObject(
+                    "SELECT owner_id FROM cards WHERE owner_id IS NOT NULL ORDER BY id LIMIT 1", UUID.class);
+            Long card = jdbcTemplate.queryForObject(
+                    "SELECT id FROM cards WHERE owner_id = ? ORDER BY id LIMIT 1", Long.class, owner);
+            UUID application = jdbcTemplate.queryForObject("SELECT id FROM applications LIMIT 1", UUID.class);
+            Limit limit = Limit.of(11);
+
+            Map<String, Runnable> queries = new LinkedHashMap<>();
+            queries.put("CardEntityRepository.findByOwnerId",
+                    () -> cards.findByOwnerId(owner, PageRequest.of(1, 10, Sort.by("id"))));
+            queries.put("CardEntityRepository.findSummariesByOwnerId",
+                    () -> cards.findSummariesByOwnerId(owner, PageRequest.of(1, 10, Sort.by("id"))));
+            queries.put("CardEntityRepository.findSummariesByOwnerIdAndIdGreaterThanOrderByIdAsc",
+                    () -> cards.findSummariesByOwnerIdAndIdGreaterThanOrderByIdAsc(owner, card, limit));
+            queries.put("CardEntityRepository.findSummariesByIdGreaterThanOrderByIdAsc",
+                    () -> cards.findSummariesByIdGreaterThanOrderByIdAsc(card, limit));
+            queries.put("CardEntityRepository.findByIdAndOwnerId", () -> cards.findByIdAndOwnerId(card, owner));
+            queries.put("CardEntityRepository.findBalanceByIdAndOwnerId",
+                    () -> cards.findBalanceByIdAndOwnerId(card, owner));
+            queries.put("CardEntityRepository.findByIdForUpdate", () -> cards.findByIdForUpdate(card));
+            queries.put("CardEntityRepository.findByIdAndOwnerIdForUpdate",
+                    () -> cards.findByIdAndOwnerIdForUpdate(card, owner));
+            queries.put("CardEntityRepository.findExistingPanHashes",
+                    () -> cards.findExistingPanHashes(Set.of("explain-1", "explain-2")));
+            queries.put("ClientEntityRepository.findByLogin", () -> clients.findByLogin("explain-4242"));
+            queries.put("ClientEntityRepository.findByLoginAfter",
+                    () -> clients.findByLoginAfter("explain-4242", owner, limit));
+            queries.put("ApplicationEntityRepository.existsByCardIdAndApprovedIsFalse",
+                    () -> applications.existsByCardIdAndApprovedIsFalse(card));
+            queries.put("ApplicationEntityRepository.findByApprovedAndIdGreaterThanOrderByIdAsc",
+                    () -> applications.findByApprovedAndIdGreaterThanOrderByIdAsc(true, application, limit));
+            queries.put("LedgerEntryRepository.findLatestByCardId",
+                    () -> ledger.findLatestByCardId(card, Limit.of(21)));
+
+            queries.forEach((name, query) -> {
+                EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory).clear();
+                List<String> statements = CapturingStatementInspector.capture(query);
+                List<String> plans = new ArrayList<>();
+                for (String sql : statements) {
+                    plans.add(sql + "\n" + String.join("\n", explain(jdbcTemplate, sql)));
+                }
+                PLANS.put(name, plans);
+            });
+        });
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    static Stream<String> repositoryMethods() {
+        return PLANS.keySet().stream();
+    }
+
+    @DisplayName("Repository query avoids sequential scans")
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryMethods")
+    void avoidsSequentialScans(String repositoryMethod) {
+        List<String> plans = PLANS.get(repositoryMethod);
+        assertFalse(plans.isEmpty(), repositoryMethod + " ran no SQL");
+        for (String plan : plans) {
+            assertFalse(plan.contains("Seq Scan"), repositoryMethod + " plan:\n" + plan);
+        }
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("""
+                INSERT INTO clients (id, login, password)
+                SELECT gen_random_uuid(), 'explain-' || g, 'x' FROM generate_series(1, 20000) g
+                """);
+        jdbcTemplate.execute("""
+                INSERT INTO cards (id, pan_ciphertext, last4, pan_hash, owner_id, status, balance,
+                                   expiry_month, expiry_year)
+                SELECT nextval('cards_seq'), '\\x01'::bytea, '0000', md5('explain-' || g),
+                       c.id, 'ACTIVE', 0, 1, 2030
+                FROM generate_series(1, 100000) g
+                JOIN LATERAL (SELECT id FROM clients WHERE login = 'explain-' || (g % 20000 + 1)) c ON true
+                """);
+        jdbcTemplate.execute("""
+                INSERT INTO applications (id, account_id, card_id, approved)
+                SELECT gen_random_uuid(), owner_id, id, id % 10 = 0 FROM cards WHERE id % 5 = 0
+                """);
+        jdbcTemplate.execute("""
+                INSERT INTO ledger_entries (transfer_id, card_id, entry_type, amount, created_at)
+                SELECT gen_random_uuid(), id, 'CREDIT', 1, now() - (id || ' seconds')::interval FROM cards
+                """);
+        jdbcTemplate.execute("ANALYZE clients, cards, applications, ledger_entries");
+    }
+
+    /**
+     * Prepares the statement with its JDBC placeholders as {@code $n} parameters and explains an
+     * execution with every parameter null, which under {@code force_generic_plan} shows the
+     * generic plan.
+     */
+    private static List<String> explain(JdbcTemplate jdbcTemplate, String sql) {
+        StringBuilder prepared = new StringBuilder(sql.length() + 16);
+        List<String> parameters = new ArrayList<>();
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                parameters.add("NULL");
+                prepared.append('$').append(parameters.size());
+            } else {
+                prepared.append(c);
+            }
+        }
+        jdbcTemplate.execute("PREPARE explained AS " + prepared);
+        try {
+            return jdbcTemplate.queryForList("EXPLAIN EXECUTE explained"
+                    + (parameters.isEmpty() ? "" : "(" + String.join(", ", parameters) + ")"), String.class);
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE explained");
+        }
+    }
+
+    /**
+     * Registered by class name, so Hibernate creates it; records the SQL of the current thread
+     * while {@link #capture(Runnable)} runs.
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+        static List<String> capture(Runnable query) {
+            List<String> statements = new ArrayList<>();
+            CAPTURED.set(statements);
+            try {
+                query.run();
+            } finally {
+                CAPTURED.remove();
+            }
+            return statements;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = CAPTURED.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+}
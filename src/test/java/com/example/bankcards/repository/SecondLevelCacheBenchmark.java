@@ -0,0 +1,113 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.BenchmarkApplication;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.ClientEntity;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hot lookups behind the admin card endpoints and principal resolution, with the second-level
+ * cache off and on ({@code l2}): a card by id in a transaction, as {@code blockCard} and
+ * {@code approveApplication} load it, and a client by login. The {@code statements} and
+ * {@code lookups} counters give the SQL statements per lookup; {@code hibernate.second.level.cache.*}
+ * meters report the hit ratio in the running service. Needs {@code BENCH_DB_URL}, see
+ * {@link BenchmarkApplication}.
+ * <p>
+ * {@code mvn -P benchmark test -Djmh.args="SecondLevelCacheBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class SecondLevelCacheBenchmark {
+
+    @Param({"false", "true"})
+    private boolean l2;
+
+    private ConfigurableApplicationContext context;
+    private CardEntityRepository cardEntityRepository;
+    private ClientEntityRepository clientEntityRepository;
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private Long cardId;
+    private String login;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("HIBERNATE_L2_CACHE_ENABLED=" + l2,
+                "spring.jpa.properties.hibernate.generate_statistics=true");
+        cardEntityRepository = context.getBean(CardEntityRepository.class);
+        clientEntityRepository = context.getBean(ClientEntityRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        UUID ownerId = BenchmarkApplication.seedClient(jdbcTemplate, 1, 0L);
+        List<Long> cards = BenchmarkApplication.cardIds(jdbcTemplate, ownerId);
+        cardId = cards.get(0);
+        login = "bench-" + ownerId;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Queries {
+
+        public long statements;
+        public long lookups;
+    }
+
+    @Benchmark
+    public Optional<CardEntity> cardById(Queries queries) {
+        long before = statistics.getPrepareStatementCount();
+        Optional<CardEntity> card = transactionTemplate.execute(status -> cardEntityRepository.findById(cardId));
+        count(queries, before);
+        return card;
+    }
+
+    @Benchmark
+    public Optional<ClientEntity> clientByLogin(Queries queries) {
+        long before = statistics.getPrepareStatementCount();
+        Optional<ClientEntity> client = clientEntityRepository.findByLogin(login);
+        count(queries, before);
+        return client;
+    }
+
+    private void count(Queries queries, long before) {
+        queries.statements += statistics.getPrepareStatementCount() - before;
+        queries.lookups++;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.ClientEntity;
+import com.example.bankcards.entity.enums.RoleType;
+import com.example.bankcards.repository.AdminEntityRepository;
+import com.example.bankcards.repository.ClientEntityRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomUserDetailsServiceTest {
+
+    @Mock
+    private AdminEntityRepository adminRepository;
+
+    @Mock
+    private ClientEntityRepository clientRepository;
+
+    @InjectMocks
+    private CustomUserDetailsService userDetailsService;
+
+    @Test
+    @DisplayName("loadUserByUsernameAndRole: client principals are resolved without probing admins")
+    void loadClientQueriesOnlyClients() {
+        UUID clientId = UUID.randomUUID();
+        when(clientRepository.findByLogin("john"))
+                .thenReturn(Optional.of(ClientEntity.builder().id(clientId).login("john").password("hash").build()));
+
+        UserDetails details = userDetailsService.loadUserByUsernameAndRole("john", RoleType.USER);
+
+        assertThat(details).isInstanceOf(BankUserDetails.class);
+        assertThat(((BankUserDetails) details).getClientId()).isEqualTo(clientId);
+        verifyNoInteractions(adminRepository);
+    }
+
+    @Test
+    @DisplayName("loadUserByUsernameAndRole: admin token does not fall back to clients")
+    void loadAdminQueriesOnlyAdmins() {
+        when(adminRepository.findByUsername("john")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class,
+                () -> userDetailsService.loadUserByUsernameAndRole("john", RoleType.ADMIN));
+        verifyNoInteractions(clientRepository);
+    }
+}
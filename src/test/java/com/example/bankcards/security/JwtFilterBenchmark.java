@@ -0,0 +1,116 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.enums.RoleType;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token work done by {@link JwtAuthenticationFilter} for one request. {@code before} is the filter
+ * as it was: a parser built per call and the token parsed twice, once for the claims and once
+ * more in {@code isTokenValid}. {@code prebuiltParser} parses once with the shared parser,
+ * {@code verifiedCache} goes through {@link JwtService#verifyClaims} as the filter does now.
+ * {@code tokens} is how many distinct tokens the requests cycle through.
+ * <p>
+ * {@code mvn -P benchmark test -Djmh.args="JwtFilterBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "uY8p0zS9m4Xk6+6JGZveHFkNjEcNWef39/C4R2tQeM0=";
+
+    @Param({"1", "1000"})
+    private int tokens;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private Key signingKey;
+    private JwtService cached;
+    private JwtService uncached;
+    private String[] issued;
+    private UserDetails[] principals;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        cached = jwtService(true);
+        uncached = jwtService(false);
+        issued = new String[tokens];
+        principals = new UserDetails[tokens];
+        for (int i = 0; i < tokens; i++) {
+            String username = "client" + i;
+            issued[i] = cached.generateAccessToken(username, RoleType.USER);
+            principals[i] = User.withUsername(username).password("hash").roles("USER").build();
+        }
+    }
+
+    @Benchmark
+    public boolean before() {
+        int i = pick();
+        Claims claims = Jwts.parser().setSigningKey(signingKey).build().parseClaimsJws(issued[i]).getBody();
+        if (!JwtTokenType.ACCESS.name().equals(claims.get(JwtService.TOKEN_TYPE_CLAIM, String.class))) {
+            return false;
+        }
+        Claims again = Jwts.parser().setSigningKey(signingKey).build().parseClaimsJws(issued[i]).getBody();
+        return again.getSubject().equals(principals[i].getUsername())
+                && again.getExpiration().after(new Date());
+    }
+
+    @Benchmark
+    public boolean prebuiltParser() {
+        return filter(uncached, pick());
+    }
+
+    @Benchmark
+    public boolean verifiedCache() {
+        return filter(cached, pick());
+    }
+
+    private boolean filter(JwtService jwtService, int i) {
+        Claims claims = jwtService.verifyClaims(issued[i]);
+        return jwtService.extractTokenType(claims) == JwtTokenType.ACCESS
+                && jwtService.isTokenValid(claims, principals[i], JwtTokenType.ACCESS);
+    }
+
+    private int pick() {
+        return Math.floorMod(next.getAndIncrement(), tokens);
+    }
+
+    private static JwtService jwtService(boolean verifiedCache) {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        properties.setAccessTokenTtl(3600);
+        properties.setRefreshTokenTtl(3600);
+        properties.setIssuer("bankcards-api");
+        properties.getVerifiedCache().setEnabled(verifiedCache);
+        JwtService jwtService = new JwtService(properties);
+        jwtService.initKey();
+        return jwtService;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.enums.RoleType;
+import com.example.bankcards.exception.JwtValidationException;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtServiceTest {
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret("uY8p0zS9m4Xk6+6JGZveHFkNjEcNWef39/C4R2tQeM0=");
+        properties.setAccessTokenTtl(900);
+        properties.setRefreshTokenTtl(3600);
+        properties.setIssuer("bankcards-api");
+        jwtService = new JwtService(properties);
+        jwtService.initKey();
+    }
+
+    @Test
+    @DisplayName("verifyClaims: repeated presentations of a token reuse the verified claims")
+    void verifyClaims_cachesVerifiedToken() {
+        String token = jwtService.generateAccessToken("client", RoleType.USER);
+        UserDetails userDetails = User.withUsername("client").password("hash").roles("USER").build();
+
+        Claims first = jwtService.verifyClaims(token);
+        Claims second = jwtService.verifyClaims(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(jwtService.isTokenValid(first, userDetails, JwtTokenType.ACCESS)).isTrue();
+        assertThat(jwtService.isTokenValid(first, userDetails, JwtTokenType.REFRESH)).isFalse();
+    }
+
+    @Test
+    @DisplayName("verifyClaims: tampered tokens are rejected")
+    void verifyClaims_rejectsTamperedToken() {
+        String token = jwtService.generateAccessToken("client", RoleType.USER);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtValidationException.class, () -> jwtService.verifyClaims(tampered));
+    }
+
+    @Test
+    @DisplayName("generateAccessToken: client tokens carry the client id claim")
+    void generateAccessToken_embedsClientId() {
+        UUID clientId = UUID.randomUUID();
+
+        Claims clientClaims = jwtService.parseClaims(jwtService.generateAccessToken("client", RoleType.USER, clientId));
+        Claims adminClaims = jwtService.parseClaims(jwtService.generateAccessToken("admin", RoleType.ADMIN));
+
+        assertThat(jwtService.extractClientId(clientClaims)).isEqualTo(clientId);
+        assertThat(jwtService.extractClientId(adminClaims)).isNull();
+    }
+}
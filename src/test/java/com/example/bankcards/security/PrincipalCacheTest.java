@@ -0,0 +1,85 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.enums.RoleType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PrincipalCacheTest {
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PrincipalCache principalCache;
+
+    private final UUID clientId = UUID.randomUUID();
+    private final UserDetails client = new BankUserDetails("client", "hash",
+            AuthorityUtils.createAuthorityList("ROLE_USER"), clientId);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        principalCache = new PrincipalCache(userDetailsService, new PrincipalCacheProperties(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("load: repeated lookups are served from the cache and counted as hits")
+    void load_cachesPrincipal() {
+        when(userDetailsService.loadUserByUsernameAndRole("client", RoleType.USER)).thenReturn(client);
+
+        assertThat(principalCache.load("client", RoleType.USER)).isSameAs(client);
+        assertThat(principalCache.load("client", RoleType.USER)).isSameAs(client);
+
+        verify(userDetailsService, times(1)).loadUserByUsernameAndRole("client", RoleType.USER);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "principals").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("invalidateClient: next lookup goes back to the user details service")
+    void invalidateClient_forcesReload() {
+        when(userDetailsService.loadUserByUsernameAndRole("client", RoleType.USER)).thenReturn(client);
+
+        principalCache.load("client", RoleType.USER);
+        principalCache.invalidateClient(clientId);
+        principalCache.load("client", RoleType.USER);
+
+        verify(userDetailsService, times(2)).loadUserByUsernameAndRole("client", RoleType.USER);
+    }
+
+    @Test
+    @DisplayName("invalidateClient: inside a transaction, a principal re-cached before the commit is dropped again")
+    void invalidateClient_evictsAgainAfterCommit() {
+        when(userDetailsService.loadUserByUsernameAndRole("client", RoleType.USER)).thenReturn(client);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            principalCache.invalidateClient(clientId);
+            principalCache.load("client", RoleType.USER);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        principalCache.load("client", RoleType.USER);
+
+        verify(userDetailsService, times(2)).loadUserByUsernameAndRole("client", RoleType.USER);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.BenchmarkApplication;
+import com.example.bankcards.entity.enums.RoleType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A principal cache miss for a client: {@code probing} is the lookup the filter used before, admins
+ * first and clients second, {@code roleDirected} reads only the table named by the role claim. The
+ * {@code statements} and {@code lookups} counters give the SQL statements per miss, 2 and 1.
+ * Needs {@code BENCH_DB_URL}, see {@link BenchmarkApplication}.
+ * <p>
+ * {@code mvn -P benchmark test -Djmh.args="PrincipalLookupBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class PrincipalLookupBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private CustomUserDetailsService userDetailsService;
+    private Statistics statistics;
+    private String login;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("spring.jpa.properties.hibernate.generate_statistics=true");
+        userDetailsService = context.getBean(CustomUserDetailsService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        login = "bench-" + BenchmarkApplication.seedClient(context.getBean(JdbcTemplate.class), 0, 0L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Queries {
+
+        public long statements;
+        public long lookups;
+    }
+
+    @Benchmark
+    public UserDetails probing(Queries queries) {
+        long before = statistics.getPrepareStatementCount();
+        UserDetails userDetails = userDetailsService.loadUserByUsername(login);
+        count(queries, before);
+        return userDetails;
+    }
+
+    @Benchmark
+    public UserDetails roleDirected(Queries queries) {
+        long before = statistics.getPrepareStatementCount();
+        UserDetails userDetails = userDetailsService.loadUserByUsernameAndRole(login, RoleType.USER);
+        count(queries, before);
+        return userDetails;
+    }
+
+    private void count(Queries queries, long before) {
+        queries.statements += statistics.getPrepareStatementCount() - before;
+        queries.lookups++;
+    }
+}
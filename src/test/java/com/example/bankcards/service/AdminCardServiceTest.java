@@ -1,5 +1,11 @@
 package com.example.bankcards.service;
 
+import org.mockito.Spy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.example.bankcards.service.cache.OwnerCardListCacheProperties;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import com.example.bankcards.service.cache.CardBalanceCacheProperties;
+import com.example.bankcards.service.cache.OwnerCardListCache;
 import com.example.bankcards.dto.request.CardCreateRequestDto;
 import com.example.bankcards.dto.request.CardUpdateRequestDto;
 import com.example.bankcards.dto.response.CardCreateResponseDto;
@@ -8,6 +14,7 @@ import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.repository.CardEntityRepository;
 import com.example.bankcards.repository.ClientEntityRepository;
+import com.example.bankcards.repository.projection.CardSummaryView;
 import com.example.bankcards.service.impl.AdminCardService;
 import com.example.bankcards.util.card_generator.CardGenerationResult;
 import com.example.bankcards.util.card_generator.ICardNumberGenerator;
@@ -23,6 +30,7 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDate;
 import java.util.Optional;
@@ -45,6 +53,15 @@ class AdminCardServiceTest {
     @Mock
     private ClientEntityRepository clientEntityRepository;
 
+    @Spy
+    private OwnerCardListCache ownerCardListCache =
+            new OwnerCardListCache(new OwnerCardListCacheProperties(), new SimpleMeterRegistry(),
+                    mock(PlatformTransactionManager.class));
+
+    @Spy
+    private CardBalanceCache cardBalanceCache =
+            new CardBalanceCache(new CardBalanceCacheProperties(), new SimpleMeterRegistry());
+
     @InjectMocks
     private AdminCardService adminCardService;
 
@@ -198,7 +215,7 @@ class AdminCardServiceTest {
                 .expiryYear(2031)
                 .build();
 
-        when(cardEntityRepository.findById(cardId)).thenReturn(Optional.of(stored));
+        when(cardEntityRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(stored));
         when(cardEntityRepository.save(any(CardEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         ResponseEntity<?> response = adminCardService.activateCard(cardId);
@@ -230,7 +247,7 @@ class AdminCardServiceTest {
                 .expiryYear(2030)
                 .build();
 
-        when(cardEntityRepository.findById(cardId)).thenReturn(Optional.of(stored));
+        when(cardEntityRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(stored));
 
         ResponseEntity<?> response = adminCardService.blockCard(cardId);
 
@@ -246,7 +263,7 @@ class AdminCardServiceTest {
     @DisplayName("blockCard returns 404 when card not found")
     void blockCardNotFound() {
         Long cardId = 999L;
-        when(cardEntityRepository.findById(cardId)).thenReturn(Optional.empty());
+        when(cardEntityRepository.findByIdForUpdate(cardId)).thenReturn(Optional.empty());
 
         ResponseEntity<?> response = adminCardService.blockCard(cardId);
 
@@ -254,11 +271,25 @@ class AdminCardServiceTest {
         assertNull(response.getBody());
     }
 
+    @Test
+    @DisplayName("deleteCard deletes the card it locked")
+    void deleteCardLocksBeforeDelete() {
+        Long cardId = 55L;
+        CardEntity stored = buildCardEntity(cardId, UUID.randomUUID(), CardStatus.ACTIVE);
+        when(cardEntityRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(stored));
+
+        ResponseEntity<?> response = adminCardService.deleteCard(cardId);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(cardEntityRepository).delete(stored);
+        verify(cardEntityRepository, never()).deleteById(any());
+    }
+
     @Test
     @DisplayName("activateCard returns 500 when repository throws")
     void activateCardError() {
         Long cardId = 101L;
-        when(cardEntityRepository.findById(cardId)).thenThrow(new RuntimeException("db error"));
+        when(cardEntityRepository.findByIdForUpdate(cardId)).thenThrow(new RuntimeException("db error"));
 
         ResponseEntity<?> response = adminCardService.activateCard(cardId);
 
@@ -282,7 +313,7 @@ class AdminCardServiceTest {
         requestDto.setExpiryYear(futureDate.getYear());
         requestDto.setStatus(CardStatus.BLOCKED);
 
-        when(cardEntityRepository.findById(cardId)).thenReturn(Optional.of(existing));
+        when(cardEntityRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(existing));
         when(cardEntityRepository.save(any(CardEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         ResponseEntity<?> response = adminCardService.updateCard(requestDto, cardId);
@@ -308,7 +339,7 @@ class AdminCardServiceTest {
     @DisplayName("updateCard returns 404 when entity does not exist")
     void updateCardNotFound() {
         Long cardId = 999L;
-        when(cardEntityRepository.findById(cardId)).thenReturn(Optional.empty());
+        when(cardEntityRepository.findByIdForUpdate(cardId)).thenReturn(Optional.empty());
 
         CardUpdateRequestDto requestDto = new CardUpdateRequestDto();
         requestDto.setExpiryMonth(LocalDate.now().plusMonths(1).getMonthValue());
@@ -325,7 +356,7 @@ class AdminCardServiceTest {
     void updateCardInvalidDate() {
         Long cardId = 5L;
         CardEntity existing = buildCardEntity(cardId, UUID.randomUUID(), CardStatus.ACTIVE);
-        when(cardEntityRepository.findById(cardId)).thenReturn(Optional.of(existing));
+        when(cardEntityRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(existing));
 
         LocalDate past = LocalDate.now().minusMonths(2);
         CardUpdateRequestDto requestDto = new CardUpdateRequestDto();
@@ -342,9 +373,11 @@ class AdminCardServiceTest {
     @DisplayName("getAllCards returns mapped DTO list for requested page")
     void getAllCardsReturnsList() {
         CardEntity card = buildCardEntity(10L, UUID.randomUUID(), CardStatus.ACTIVE);
-        when(cardEntityRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(java.util.List.of(card)));
+        CardSummaryView view = new CardSummaryView(card.getId(), card.getOwnerId(), card.getStatus(), card.getLast4(),
+                card.getExpiryMonth(), card.getExpiryYear());
+        when(cardEntityRepository.findSummariesBy(any(Pageable.class))).thenReturn(new PageImpl<>(java.util.List.of(view)));
 
-        ResponseEntity<?> response = adminCardService.getAllCards(1);
+        ResponseEntity<?> response = adminCardService.getAllCards(1, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertInstanceOf(java.util.List.class, response.getBody());
@@ -353,5 +386,7 @@ class AdminCardServiceTest {
         java.util.List<CardResponseDto> content = (java.util.List<CardResponseDto>) response.getBody();
         assertThat(content).hasSize(1);
         assertThat(content.get(0).getId()).isEqualTo(card.getId());
+        assertThat(content.get(0).getMaskedPan()).endsWith(card.getLast4());
+        verify(cardEntityRepository, never()).findAll(any(Pageable.class));
     }
 }
@@ -4,6 +4,7 @@ import com.example.bankcards.dto.request.CreateUserRequestDto;
 import com.example.bankcards.dto.response.UserGetResponseDto;
 import com.example.bankcards.entity.ClientEntity;
 import com.example.bankcards.repository.ClientEntityRepository;
+import com.example.bankcards.security.PrincipalCache;
 import com.example.bankcards.service.impl.AdminUserService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -44,6 +45,9 @@ class AdminUserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @InjectMocks
     private AdminUserService adminUserService;
 
@@ -57,6 +61,7 @@ class AdminUserServiceTest {
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         verify(clientEntityRepository).deleteClientEntityById(id);
+        verify(principalCache).invalidateClient(id);
     }
 
     @Test
@@ -146,6 +151,7 @@ class AdminUserServiceTest {
         ClientEntity saved = captor.getValue();
         assertThat(saved.getLogin()).isEqualTo("updated");
         assertThat(saved.getPassword()).isEqualTo("new-encoded");
+        verify(principalCache).invalidateClient(id);
     }
 
     @Test
@@ -227,7 +233,7 @@ class AdminUserServiceTest {
         Page<ClientEntity> page = new PageImpl<>(List.of(entity));
         when(clientEntityRepository.findAll(any(Pageable.class))).thenReturn(page);
 
-        ResponseEntity<?> response = adminUserService.getUsers(0);
+        ResponseEntity<?> response = adminUserService.getUsers(0, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertInstanceOf(List.class, response.getBody());
@@ -9,6 +9,7 @@ import com.example.bankcards.entity.enums.RoleType;
 import com.example.bankcards.exception.JwtValidationException;
 import com.example.bankcards.repository.AdminEntityRepository;
 import com.example.bankcards.repository.ClientEntityRepository;
+import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtService;
 import com.example.bankcards.security.JwtTokenType;
 import com.example.bankcards.service.impl.AuthService;
@@ -22,7 +23,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Date;
@@ -46,7 +46,7 @@ class AuthServiceTest {
     @Mock
     private JwtService jwtService;
     @Mock
-    private UserDetailsService userDetailsService;
+    private CustomUserDetailsService userDetailsService;
 
     @InjectMocks
     private AuthService authService;
@@ -67,7 +67,7 @@ class AuthServiceTest {
 
         when(adminRepository.findByUsername(requestDto.getLogin())).thenReturn(Optional.of(admin));
         when(passwordEncoder.matches(requestDto.getPassword(), admin.getPassword())).thenReturn(true);
-        when(jwtService.generateAccessToken(admin.getUsername(), RoleType.ADMIN)).thenReturn("access");
+        when(jwtService.generateAccessToken(admin.getUsername(), RoleType.ADMIN, null)).thenReturn("access");
         when(jwtService.generateRefreshToken(admin.getUsername(), RoleType.ADMIN)).thenReturn("refresh");
         when(jwtService.getAccessTokenTtl()).thenReturn(900L);
         when(jwtService.getRefreshTokenTtl()).thenReturn(2592000L);
@@ -117,10 +117,10 @@ class AuthServiceTest {
         when(jwtService.parseClaims(requestDto.getRefreshToken())).thenReturn(claims);
         when(jwtService.extractTokenType(claims)).thenReturn(JwtTokenType.REFRESH);
         when(jwtService.extractRole(claims)).thenReturn(RoleType.ADMIN);
-        when(userDetailsService.loadUserByUsername("admin@test.com"))
+        when(userDetailsService.loadUserByUsernameAndRole("admin@test.com", RoleType.ADMIN))
                 .thenReturn(User.withUsername("admin@test.com").password("encoded").roles("ADMIN").build());
-        when(jwtService.isTokenValid(eq(requestDto.getRefreshToken()), any(), eq(JwtTokenType.REFRESH))).thenReturn(true);
-        when(jwtService.generateAccessToken("admin@test.com", RoleType.ADMIN)).thenReturn("new-access");
+        when(jwtService.isTokenValid(eq(claims), any(), eq(JwtTokenType.REFRESH))).thenReturn(true);
+        when(jwtService.generateAccessToken("admin@test.com", RoleType.ADMIN, null)).thenReturn("new-access");
         when(jwtService.generateRefreshToken("admin@test.com", RoleType.ADMIN)).thenReturn("new-refresh");
         when(jwtService.getAccessTokenTtl()).thenReturn(900L);
         when(jwtService.getRefreshTokenTtl()).thenReturn(2592000L);
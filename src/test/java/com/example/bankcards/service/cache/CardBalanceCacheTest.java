@@ -0,0 +1,283 @@
+package com.example.bankcards.service.cache;
+
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.enums.CardStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardBalanceCacheTest {
+
+    private final UUID owner = UUID.randomUUID();
+    private final CardBalanceCache cache = new CardBalanceCache(properties(), new SimpleMeterRegistry());
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("balance: hits only for the owner of a cached, unsharded card")
+    void balance_hitsOnlyForOwner() {
+        cache.record(1L, owner, 300L, CardStatus.ACTIVE, false, 0L);
+        cache.record(2L, owner, 0L, CardStatus.ACTIVE, true, 0L);
+
+        assertThat(cache.balance(1L, owner)).isEqualTo(300L);
+        assertThat(cache.balance(1L, UUID.randomUUID())).isEqualTo(CardBalanceCache.MISS);
+        assertThat(cache.balance(2L, owner)).isEqualTo(CardBalanceCache.MISS);
+        assertThat(cache.balance(3L, owner)).isEqualTo(CardBalanceCache.MISS);
+    }
+
+    @Test
+    @DisplayName("record: a read of an older version does not replace a newer write")
+    void record_keepsNewestVersion() {
+        cache.record(1L, owner, 250L, CardStatus.ACTIVE, false, 6L);
+        cache.record(1L, owner, 300L, CardStatus.ACTIVE, false, 5L);
+
+        assertThat(cache.balance(1L, owner)).isEqualTo(250L);
+    }
+
+    @Test
+    @DisplayName("recordAfterCommit: applies the entity state on commit and nothing on rollback")
+    void recordAfterCommit_waitsForCommit() {
+        CardEntity card = CardEntity.builder().id(1L).ownerId(owner).status(CardStatus.ACTIVE).balance(100L).build();
+        card.setVersion(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.recordAfterCommit(card);
+        card.setBalance(70L);
+        card.setVersion(2L);
+        assertThat(cache.balance(1L, owner)).isEqualTo(CardBalanceCache.MISS);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertThat(cache.balance(1L, owner)).isEqualTo(CardBalanceCache.MISS);
+
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertThat(cache.balance(1L, owner)).isEqualTo(70L);
+    }
+
+    @Test
+    @DisplayName("removeAfterCommit: a deleted card is never served again, not even from a late read")
+    void removeAfterCommit_outranksLateReads() {
+        cache.record(1L, owner, 100L, CardStatus.ACTIVE, false, 3L);
+
+        cache.removeAfterCommit(1L);
+        cache.record(1L, owner, 100L, CardStatus.ACTIVE, false, 3L);
+
+        assertThat(cache.balance(1L, owner)).isEqualTo(CardBalanceCache.MISS);
+    }
+
+    @Test
+    @DisplayName("balance: entries older than the ttl miss, a disabled cache always misses")
+    void balance_expiresAndCanBeDisabled() throws InterruptedException {
+        CardBalanceCacheProperties shortLived = properties();
+        shortLived.setTtl(Duration.ofMillis(1));
+        CardBalanceCache expiring = new CardBalanceCache(shortLived, new SimpleMeterRegistry());
+        expiring.record(1L, owner, 100L, CardStatus.ACTIVE, false, 0L);
+        Thread.sleep(5);
+
+        CardBalanceCacheProperties disabledProperties = properties();
+        disabledProperties.setEnabled(false);
+        CardBalanceCache disabled = new CardBalanceCache(disabledProperties, new SimpleMeterRegistry());
+        disabled.record(1L, owner, 100L, CardStatus.ACTIVE, false, 0L);
+
+        assertThat(expiring.balance(1L, owner)).isEqualTo(CardBalanceCache.MISS);
+        assertThat(disabled.balance(1L, owner)).isEqualTo(CardBalanceCache.MISS);
+    }
+
+    @Test
+    @DisplayName("interleaved transfers and reads never serve a balance older than the last acknowledged transfer, even when commits are recorded out of order")
+    void interleavedTransfersAndReads() throws Exception {
+        int cards = 8;
+        Database database = new Database(cards, 1_000L);
+        // the newest version per card whose transfer has returned to its caller
+        AtomicLongArray acknowledged = new AtomicLongArray(cards + 1);
+        AtomicBoolean transferring = new AtomicBoolean(true);
+        AtomicLong hits = new AtomicLong();
+        // the newest version per card handed to the cache so far, and how often an older one followed it
+        AtomicLongArray delivered = new AtomicLongArray(cards + 1);
+        AtomicLong outOfOrder = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                writers.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    // committed transfers whose after-commit callbacks have not run yet
+                    Deque<Commit> pending = new ArrayDeque<>();
+                    for (int i = 0; i < 5_000; i++) {
+                        long from = 1 + random.nextInt(cards);
+                        long to = 1 + (from + random.nextInt(cards - 1)) % cards;
+                        Commit commit = transfer(database, from, to, 1 + random.nextInt(50));
+                        if (commit != null) {
+                            pending.push(commit);
+                        }
+                        if (pending.size() >= 1 + random.nextInt(4) || i == 4_999) {
+                            // newest first, so every card touched twice is recorded with its older version last
+                            for (Commit done : pending) {
+                                for (Row row : done.rows) {
+                                    if (delivered.getAndAccumulate((int) row.cardId, row.version, Math::max) > row.version) {
+                                        outOfOrder.incrementAndGet();
+                                    }
+                                }
+                                done.synchronizations.forEach(TransactionSynchronization::afterCommit);
+                            }
+                            for (Commit done : pending) {
+                                for (Row row : done.rows) {
+                                    acknowledged.accumulateAndGet((int) row.cardId, row.version, Math::max);
+                                }
+                            }
+                            pending.clear();
+                        }
+                    }
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 4; r++) {
+                readers.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (transferring.get()) {
+                        long cardId = 1 + random.nextInt(cards);
+                        long floor = acknowledged.get((int) cardId);
+                        long balance = cache.balance(cardId, owner);
+                        if (balance != CardBalanceCache.MISS) {
+                            assertThat(database.committedSince(cardId, floor))
+                                    .as("card %d at version %d or later", cardId, floor)
+                                    .contains(balance);
+                            hits.incrementAndGet();
+                            continue;
+                        }
+                        // a miss loads the row, which may be superseded before it is recorded
+                        Row loaded = database.load(cardId);
+                        Thread.yield();
+                        cache.record(cardId, owner, loaded.balance, CardStatus.ACTIVE, false, loaded.version);
+                    }
+                }));
+            }
+
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            transferring.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(hits.get()).isPositive();
+        assertThat(outOfOrder.get()).as("versions recorded after a newer one").isPositive();
+        long total = 0;
+        for (long cardId = 1; cardId <= cards; cardId++) {
+            Row row = database.load(cardId);
+            assertThat(cache.balance(cardId, owner)).as("card %d", cardId).isEqualTo(row.balance);
+            total += row.balance;
+        }
+        assertThat(total).isEqualTo(cards * 1_000L);
+    }
+
+    /**
+     * Commits a transfer and registers its cache updates the way the executors do, returning the
+     * after-commit callbacks instead of running them.
+     */
+    private Commit transfer(Database database, long from, long to, long amount) {
+        Row[] rows = database.transfer(from, to, amount);
+        if (rows == null) {
+            return null;
+        }
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (Row row : rows) {
+                cache.recordAfterCommit(row.cardId, owner, row.balance, CardStatus.ACTIVE, false, row.version);
+            }
+            return new Commit(rows, TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static CardBalanceCacheProperties properties() {
+        CardBalanceCacheProperties properties = new CardBalanceCacheProperties();
+        properties.setCapacity(1024);
+        properties.setTtl(Duration.ofMinutes(5));
+        return properties;
+    }
+
+    private record Row(long cardId, long balance, long version) {
+    }
+
+    private record Commit(Row[] rows, List<TransactionSynchronization> synchronizations) {
+    }
+
+    /**
+     * The cards table reduced to balance and version, plus the balance each card committed at
+     * every version.
+     */
+    private static final class Database {
+
+        private final long[] balances;
+        private final long[] versions;
+        private final List<List<Long>> committed = new ArrayList<>();
+
+        Database(int cards, long initialBalance) {
+            balances = new long[cards + 1];
+            versions = new long[cards + 1];
+            committed.add(List.of());
+            for (int card = 1; card <= cards; card++) {
+                balances[card] = initialBalance;
+                List<Long> history = new ArrayList<>();
+                history.add(initialBalance);
+                committed.add(history);
+            }
+        }
+
+        synchronized Row[] transfer(long from, long to, long amount) {
+            if (balances[(int) from] < amount) {
+                return null;
+            }
+            return new Row[]{apply(from, -amount), apply(to, amount)};
+        }
+
+        synchronized Row load(long cardId) {
+            return new Row(cardId, balances[(int) cardId], versions[(int) cardId]);
+        }
+
+        synchronized List<Long> committedSince(long cardId, long version) {
+            List<Long> history = committed.get((int) cardId);
+            return List.copyOf(history.subList((int) version, history.size()));
+        }
+
+        private Row apply(long cardId, long delta) {
+            int card = (int) cardId;
+            balances[card] += delta;
+            versions[card]++;
+            committed.get(card).add(balances[card]);
+            return new Row(cardId, balances[card], versions[card]);
+        }
+    }
+}
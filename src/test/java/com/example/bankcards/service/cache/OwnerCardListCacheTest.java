@@ -0,0 +1,143 @@
+package com.example.bankcards.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class OwnerCardListCacheTest {
+
+    private static final OwnerCardListCache.PageKey FIRST_PAGE = new OwnerCardListCache.PageKey(false, 0, 10);
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final OwnerCardListCache cache =
+            new OwnerCardListCache(new OwnerCardListCacheProperties(), new SimpleMeterRegistry(), transactionManager);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("get: a page that is cached is loaded in a new read-write transaction, away from the replicas")
+    void get_loadsOnPrimary() {
+        cache.get(UUID.randomUUID(), FIRST_PAGE, () -> List.of("card-1"));
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertThat(definition.getValue().getPropagationBehavior())
+                .isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        assertThat(definition.getValue().isReadOnly()).isFalse();
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("get: concurrent requests for an uncached page share a single load")
+    void get_singleFlight() throws Exception {
+        UUID owner = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get(owner, FIRST_PAGE, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return List.of("card-1");
+            })));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 7; i++) {
+                results.add(pool.submit(() -> cache.get(owner, FIRST_PAGE, () -> {
+                    loads.incrementAndGet();
+                    return List.of("card-other");
+                })));
+            }
+            Thread.sleep(50);
+            release.countDown();
+
+            for (Future<Object> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(List.of("card-1"));
+            }
+            assertThat(loads).hasValue(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("invalidate: only the pages of the affected owner are reloaded")
+    void invalidate_isPerOwner() {
+        UUID owner = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(owner, FIRST_PAGE, () -> loads.incrementAndGet());
+        cache.get(other, FIRST_PAGE, () -> loads.incrementAndGet());
+
+        cache.invalidate(owner, null);
+
+        assertThat(cache.get(owner, FIRST_PAGE, () -> loads.incrementAndGet())).isEqualTo(3);
+        assertThat(cache.get(other, FIRST_PAGE, () -> loads.incrementAndGet())).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("invalidate: a page loaded before the transaction completes is dropped again afterwards")
+    void invalidate_againAfterCompletion() {
+        UUID owner = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate(owner);
+        cache.get(owner, FIRST_PAGE, () -> loads.incrementAndGet());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        assertThat(cache.get(owner, FIRST_PAGE, () -> loads.incrementAndGet())).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("get: a failed load is not cached")
+    void get_failureIsNotCached() {
+        UUID owner = UUID.randomUUID();
+
+        assertThrows(IllegalStateException.class, () -> cache.get(owner, FIRST_PAGE, () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertThat(cache.get(owner, FIRST_PAGE, () -> "loaded")).isEqualTo("loaded");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
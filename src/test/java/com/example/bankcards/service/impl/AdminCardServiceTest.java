@@ -1,31 +1,51 @@
 package com.example.bankcards.service.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.example.bankcards.service.cache.OwnerCardListCacheProperties;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import com.example.bankcards.service.cache.CardBalanceCacheProperties;
+import com.example.bankcards.service.cache.OwnerCardListCache;
+import com.example.bankcards.config.PaginationProperties;
+import com.example.bankcards.dto.request.CardBulkCreateRequestDto;
+import com.example.bankcards.dto.response.CardBalanceResponseDto;
+import com.example.bankcards.dto.response.CardBulkCreateResponseDto;
+import com.example.bankcards.dto.response.CursorPageResponseDto;
 import com.example.bankcards.entity.ApplicationEntity;
 import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.repository.ApplicationEntityRepository;
 import com.example.bankcards.repository.CardEntityRepository;
 import com.example.bankcards.repository.ClientEntityRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import com.example.bankcards.util.card_generator.CardGenerationResult;
 import com.example.bankcards.util.card_generator.ICardNumberGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -44,6 +64,24 @@ class AdminCardServiceTest {
     @Mock
     private ClientEntityRepository clientEntityRepository;
 
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Spy
+    private PaginationProperties paginationProperties = new PaginationProperties();
+
+    @Spy
+    private OwnerCardListCache ownerCardListCache =
+            new OwnerCardListCache(new OwnerCardListCacheProperties(), new SimpleMeterRegistry(),
+                    mock(PlatformTransactionManager.class));
+
+    @Spy
+    private CardBalanceCache cardBalanceCache =
+            new CardBalanceCache(new CardBalanceCacheProperties(), new SimpleMeterRegistry());
+
+    @Captor
+    private ArgumentCaptor<List<CardEntity>> insertedCards;
+
     @InjectMocks
     private AdminCardService adminCardService;
 
@@ -71,7 +109,7 @@ class AdminCardServiceTest {
     void approveApplication_marksApplicationAndCardBlocked() {
         when(applicationEntityRepository.findById(applicationId)).thenReturn(Optional.of(pendingApplication));
         when(applicationEntityRepository.save(any(ApplicationEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(cardEntityRepository.findById(99L)).thenReturn(Optional.of(activeCard));
+        when(cardEntityRepository.findByIdForUpdate(99L)).thenReturn(Optional.of(activeCard));
         when(cardEntityRepository.save(any(CardEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         ResponseEntity<?> response = adminCardService.approveApplication(applicationId);
@@ -128,7 +166,7 @@ class AdminCardServiceTest {
         when(applicationEntityRepository.findAll(any(PageRequest.class)))
                 .thenReturn(new PageImpl<>(List.of(application)));
 
-        ResponseEntity<?> response = adminCardService.getApplications(0, null);
+        ResponseEntity<?> response = adminCardService.getApplications(0, null, null, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isInstanceOf(List.class);
@@ -151,7 +189,7 @@ class AdminCardServiceTest {
         when(applicationEntityRepository.findAllByApproved(eq(Boolean.TRUE), any(PageRequest.class)))
                 .thenReturn(new PageImpl<>(List.of(application)));
 
-        ResponseEntity<?> response = adminCardService.getApplications(1, Boolean.TRUE);
+        ResponseEntity<?> response = adminCardService.getApplications(1, Boolean.TRUE, null, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isInstanceOf(List.class);
@@ -161,4 +199,97 @@ class AdminCardServiceTest {
         verify(applicationEntityRepository).findAllByApproved(eq(Boolean.TRUE), any(PageRequest.class));
         verify(applicationEntityRepository, never()).findAll(any(PageRequest.class));
     }
+
+    @Test
+    void createCards_regeneratesNumbersThatAlreadyExist() {
+        AtomicInteger sequence = new AtomicInteger();
+        when(cardNumberGenerator.generate()).thenAnswer(invocation -> {
+            int n = sequence.getAndIncrement();
+            return new CardGenerationResult("400000000000000" + n, "enc" + n, "hash" + n, "000" + n, 1, 2030);
+        });
+        when(cardEntityRepository.findExistingPanHashes(anyList()))
+                .thenReturn(List.of("hash0"))
+                .thenReturn(List.of());
+        when(cardEntityRepository.insertAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CardBulkCreateRequestDto request = new CardBulkCreateRequestDto();
+        request.setCount(3);
+
+        ResponseEntity<?> response = adminCardService.createCards(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        CardBulkCreateResponseDto body = (CardBulkCreateResponseDto) response.getBody();
+        assertThat(body.getCreated()).isEqualTo(3);
+
+        verify(cardEntityRepository).insertAll(insertedCards.capture());
+        assertThat(insertedCards.getValue()).extracting(CardEntity::getPanHash)
+                .doesNotContain("hash0")
+                .doesNotHaveDuplicates()
+                .hasSize(3);
+        verify(cardNumberGenerator, times(4)).generate();
+    }
+
+    @Test
+    void createCards_rejectsUnknownOwners() {
+        UUID known = UUID.randomUUID();
+        UUID unknown = UUID.randomUUID();
+        when(clientEntityRepository.countByIdIn(anyCollection())).thenReturn(1L);
+
+        CardBulkCreateRequestDto request = new CardBulkCreateRequestDto();
+        request.setOwnerIds(List.of(known, unknown));
+
+        ResponseEntity<?> response = adminCardService.createCards(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(cardNumberGenerator, never()).generate();
+        verify(cardEntityRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void getBalanceAt_sumsLedgerOfExistingCard() {
+        OffsetDateTime at = OffsetDateTime.parse("2024-05-01T12:00:00Z");
+        when(cardEntityRepository.existsById(99L)).thenReturn(true);
+        when(ledgerEntryRepository.sumAmountByCardIdAt(99L, at)).thenReturn(250L);
+
+        ResponseEntity<?> response = adminCardService.getBalanceAt(99L, at);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(((CardBalanceResponseDto) response.getBody()).getBalance()).isEqualTo(250L);
+    }
+
+    @Test
+    void getBalanceAt_returnsNotFoundForUnknownCard() {
+        when(cardEntityRepository.existsById(404L)).thenReturn(false);
+
+        ResponseEntity<?> response = adminCardService.getBalanceAt(404L, OffsetDateTime.now());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verify(ledgerEntryRepository, never()).sumAmountByCardIdAt(any(), any());
+    }
+
+    @Test
+    void getApplications_cursorModeSeeksWithoutCounting() {
+        ApplicationEntity first = ApplicationEntity.builder().id(UUID.randomUUID()).accountId(UUID.randomUUID())
+                .cardId(1L).approved(Boolean.FALSE).build();
+        ApplicationEntity second = ApplicationEntity.builder().id(UUID.randomUUID()).accountId(UUID.randomUUID())
+                .cardId(2L).approved(Boolean.FALSE).build();
+        when(applicationEntityRepository.findByApprovedAndIdGreaterThanOrderByIdAsc(
+                eq(Boolean.FALSE), eq(new UUID(0L, 0L)), eq(Limit.of(2))))
+                .thenReturn(List.of(first, second));
+        when(applicationEntityRepository.findByApprovedAndIdGreaterThanOrderByIdAsc(
+                eq(Boolean.FALSE), eq(first.getId()), eq(Limit.of(2))))
+                .thenReturn(List.of(second));
+
+        ResponseEntity<?> response = adminCardService.getApplications(0, Boolean.FALSE, null, 1);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        CursorPageResponseDto<?> page = (CursorPageResponseDto<?>) response.getBody();
+        assertThat(page.getItems()).hasSize(1);
+
+        CursorPageResponseDto<?> nextPage = (CursorPageResponseDto<?>)
+                adminCardService.getApplications(0, Boolean.FALSE, page.getNext(), 1).getBody();
+        assertThat(nextPage.getItems()).hasSize(1);
+        assertThat(nextPage.getNext()).isNull();
+        verify(applicationEntityRepository, never()).findAllByApproved(anyBoolean(), any(PageRequest.class));
+    }
 }
@@ -0,0 +1,78 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.BenchmarkApplication;
+import com.example.bankcards.security.BankUserDetails;
+import com.example.bankcards.service.IUserCardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /user/card/{cardId}/balance} through {@code getBalance}, with the off-heap balance
+ * cache off and on ({@code cache}), over a client's {@code cards} cards. With the cache on nearly
+ * every call is a hit; {@code -prof gc} shows what a hit still allocates around the lookup (the
+ * transaction and the response), against the query path. Needs {@code BENCH_DB_URL}, see
+ * {@link BenchmarkApplication}.
+ * <p>
+ * {@code mvn -P benchmark test -Djmh.args="BalanceLookupBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BalanceLookupBenchmark {
+
+    @Param({"false", "true"})
+    private boolean cache;
+
+    @Param({"16"})
+    private int cards;
+
+    private ConfigurableApplicationContext context;
+    private IUserCardService userCardService;
+    private BankUserDetails user;
+    private Long[] cardIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("BALANCE_CACHE_ENABLED=" + cache, "BALANCE_CACHE_TTL=1h");
+        userCardService = context.getBean(IUserCardService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        UUID ownerId = BenchmarkApplication.seedClient(jdbcTemplate, cards, 1_000L);
+        List<Long> ids = BenchmarkApplication.cardIds(jdbcTemplate, ownerId);
+        cardIds = ids.toArray(Long[]::new);
+        user = new BankUserDetails("bench-" + ownerId, "x", AuthorityUtils.createAuthorityList("USER"), ownerId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getBalance() {
+        Long cardId = cardIds[next++ & (cardIds.length - 1)];
+        return userCardService.getBalance(cardId, user);
+    }
+}
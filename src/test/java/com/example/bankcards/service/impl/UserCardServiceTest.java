@@ -1,25 +1,43 @@
 package com.example.bankcards.service.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.example.bankcards.service.cache.OwnerCardListCacheProperties;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import com.example.bankcards.service.cache.CardBalanceCacheProperties;
+import com.example.bankcards.service.cache.OwnerCardListCache;
+import com.example.bankcards.config.PaginationProperties;
 import com.example.bankcards.dto.response.ApplicationResponseDto;
+import com.example.bankcards.dto.response.CursorPageResponseDto;
 import com.example.bankcards.entity.ApplicationEntity;
 import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.ClientEntity;
+import com.example.bankcards.entity.LedgerEntryEntity;
 import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.entity.enums.LedgerEntryType;
 import com.example.bankcards.repository.ApplicationEntityRepository;
 import com.example.bankcards.repository.CardEntityRepository;
 import com.example.bankcards.repository.ClientEntityRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import com.example.bankcards.repository.projection.CardSummaryView;
+import com.example.bankcards.security.BankUserDetails;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -40,6 +58,21 @@ class UserCardServiceTest {
     @Mock
     private ApplicationEntityRepository applicationEntityRepository;
 
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Spy
+    private PaginationProperties paginationProperties = new PaginationProperties();
+
+    @Spy
+    private OwnerCardListCache ownerCardListCache =
+            new OwnerCardListCache(new OwnerCardListCacheProperties(), new SimpleMeterRegistry(),
+                    mock(PlatformTransactionManager.class));
+
+    @Spy
+    private CardBalanceCache cardBalanceCache =
+            new CardBalanceCache(new CardBalanceCacheProperties(), new SimpleMeterRegistry());
+
     @InjectMocks
     private UserCardService userCardService;
 
@@ -80,7 +113,7 @@ class UserCardServiceTest {
                 .build();
 
         when(clientEntityRepository.findByLogin("john")).thenReturn(Optional.of(client));
-        when(cardEntityRepository.findByIdAndOwnerId(cardId, userId)).thenReturn(Optional.of(card));
+        when(cardEntityRepository.findByIdAndOwnerIdForUpdate(cardId, userId)).thenReturn(Optional.of(card));
         when(applicationEntityRepository.existsByCardIdAndApprovedIsFalse(cardId)).thenReturn(false);
         when(applicationEntityRepository.save(any(ApplicationEntity.class))).thenReturn(savedApplication);
 
@@ -111,7 +144,7 @@ class UserCardServiceTest {
                 .build();
 
         when(clientEntityRepository.findByLogin("john")).thenReturn(Optional.of(client));
-        when(cardEntityRepository.findByIdAndOwnerId(cardId, userId)).thenReturn(Optional.of(CardEntity.builder()
+        when(cardEntityRepository.findByIdAndOwnerIdForUpdate(cardId, userId)).thenReturn(Optional.of(CardEntity.builder()
                 .id(cardId)
                 .ownerId(userId)
                 .status(CardStatus.ACTIVE)
@@ -136,11 +169,105 @@ class UserCardServiceTest {
                 .build();
 
         when(clientEntityRepository.findByLogin("john")).thenReturn(Optional.of(client));
-        when(cardEntityRepository.findByIdAndOwnerId(cardId, userId)).thenReturn(Optional.empty());
+        when(cardEntityRepository.findByIdAndOwnerIdForUpdate(cardId, userId)).thenReturn(Optional.empty());
 
         ResponseEntity<?> response = userCardService.requestCardBlock(cardId, userDetails);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
         verify(applicationEntityRepository, never()).save(any(ApplicationEntity.class));
     }
+
+    @Test
+    void getTransactions_returnsKeysetPageWithNextCursor() {
+        Long cardId = 7L;
+        ClientEntity client = ClientEntity.builder().id(userId).login("john").password("secret").build();
+        OffsetDateTime now = OffsetDateTime.parse("2025-03-01T10:15:30.123456Z");
+        List<LedgerEntryEntity> entries = List.of(
+                LedgerEntryEntity.builder().id(30L).cardId(cardId).entryType(LedgerEntryType.CREDIT).amount(5L).createdAt(now).build(),
+                LedgerEntryEntity.builder().id(29L).cardId(cardId).entryType(LedgerEntryType.DEBIT).amount(-3L).createdAt(now.minusSeconds(1)).build(),
+                LedgerEntryEntity.builder().id(28L).cardId(cardId).entryType(LedgerEntryType.DEBIT).amount(-1L).createdAt(now.minusSeconds(2)).build());
+
+        when(clientEntityRepository.findByLogin("john")).thenReturn(Optional.of(client));
+        when(cardEntityRepository.existsByIdAndOwnerId(cardId, userId)).thenReturn(true);
+        when(ledgerEntryRepository.findLatestByCardId(cardId, Limit.of(3))).thenReturn(entries);
+
+        ResponseEntity<?> response = userCardService.getTransactions(cardId, null, 2, userDetails);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        CursorPageResponseDto<?> page = (CursorPageResponseDto<?>) response.getBody();
+        assertThat(page.getItems()).hasSize(2);
+        assertThat(page.getNext()).isNotNull();
+
+        when(ledgerEntryRepository.findByCardIdBefore(cardId, now.minusSeconds(1), 29L, Limit.of(3)))
+                .thenReturn(List.of(entries.get(2)));
+
+        ResponseEntity<?> nextResponse = userCardService.getTransactions(cardId, page.getNext(), 2, userDetails);
+
+        CursorPageResponseDto<?> nextPage = (CursorPageResponseDto<?>) nextResponse.getBody();
+        assertThat(nextPage.getItems()).hasSize(1);
+        assertThat(nextPage.getNext()).isNull();
+    }
+
+    @Test
+    void getCards_seeksPastCursorAndCapsPageSize() {
+        paginationProperties.setMaxSize(2);
+        BankUserDetails principal = new BankUserDetails("john", "secret",
+                AuthorityUtils.createAuthorityList("ROLE_USER"), userId);
+        List<CardSummaryView> cards = List.of(
+                new CardSummaryView(11L, userId, CardStatus.ACTIVE, "1111", null, null),
+                new CardSummaryView(12L, userId, CardStatus.ACTIVE, "2222", null, null),
+                new CardSummaryView(13L, userId, CardStatus.ACTIVE, "3333", null, null));
+        when(cardEntityRepository.findSummariesByOwnerIdAndIdGreaterThanOrderByIdAsc(userId, 0L, Limit.of(3))).thenReturn(cards);
+        when(cardEntityRepository.findSummariesByOwnerIdAndIdGreaterThanOrderByIdAsc(userId, 12L, Limit.of(3)))
+                .thenReturn(List.of(cards.get(2)));
+
+        ResponseEntity<?> response = userCardService.getCards(0, "", 50, principal);
+
+        CursorPageResponseDto<?> page = (CursorPageResponseDto<?>) response.getBody();
+        assertThat(page.getItems()).hasSize(2);
+        assertThat(page.getNext()).isNotNull();
+
+        CursorPageResponseDto<?> nextPage = (CursorPageResponseDto<?>)
+                userCardService.getCards(0, page.getNext(), 50, principal).getBody();
+        assertThat(nextPage.getItems()).hasSize(1);
+        assertThat(nextPage.getNext()).isNull();
+        verify(cardEntityRepository, never()).findSummariesByOwnerId(any(), any());
+    }
+
+    @Test
+    void getCards_rejectsMalformedCursor() {
+        BankUserDetails principal = new BankUserDetails("john", "secret",
+                AuthorityUtils.createAuthorityList("ROLE_USER"), userId);
+
+        ResponseEntity<?> response = userCardService.getCards(0, "not-a-cursor", null, principal);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(cardEntityRepository);
+    }
+
+    @Test
+    void getTransactions_returnsNotFoundForForeignCard() {
+        ClientEntity client = ClientEntity.builder().id(userId).login("john").password("secret").build();
+        when(clientEntityRepository.findByLogin("john")).thenReturn(Optional.of(client));
+        when(cardEntityRepository.existsByIdAndOwnerId(8L, userId)).thenReturn(false);
+
+        ResponseEntity<?> response = userCardService.getTransactions(8L, null, 20, userDetails);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verifyNoInteractions(ledgerEntryRepository);
+    }
+
+    @Test
+    void requestCardBlock_takesOwnerFromPrincipalWithoutLoginLookup() {
+        Long cardId = 12L;
+        UserDetails principal = new BankUserDetails("john", "secret",
+                AuthorityUtils.createAuthorityList("ROLE_USER"), userId);
+
+        when(cardEntityRepository.findByIdAndOwnerIdForUpdate(cardId, userId)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = userCardService.requestCardBlock(cardId, principal);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verifyNoInteractions(clientEntityRepository);
+    }
 }
@@ -0,0 +1,142 @@
+package com.example.bankcards.service.pan;
+
+import com.example.bankcards.util.AesGcmCipherEngine;
+import com.example.bankcards.util.card_generator.CardGenerationResult;
+import com.example.bankcards.util.card_generator.CardNumberGenerator;
+import com.example.bankcards.util.card_generator.CardNumberPoolProperties;
+import com.example.bankcards.util.card_generator.PanStorageMode;
+import com.example.bankcards.util.card_generator.PanStorageProperties;
+import com.example.bankcards.util.card_generator.SecureCardNumberGenerator;
+import com.example.bankcards.util.pan_key.IPanKeyProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberPoolTest {
+
+    private static final AesGcmCipherEngine ENGINE =
+            new AesGcmCipherEngine("0123456789ABCDEF0123456789ABCDEF".getBytes(StandardCharsets.UTF_8));
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CardNumberPool pool;
+
+    private int currentVersion = 1;
+
+    @BeforeEach
+    void setUp() {
+        IPanKeyProvider keyProvider = new IPanKeyProvider() {
+            @Override
+            public int currentVersion() {
+                return currentVersion;
+            }
+
+            @Override
+            public AesGcmCipherEngine engine(int version) {
+                return ENGINE;
+            }
+        };
+        PanStorageProperties storage = new PanStorageProperties();
+        storage.setStorage(PanStorageMode.BINARY);
+        CardNumberPoolProperties properties = new CardNumberPoolProperties();
+        properties.setLowWatermark(0);
+        properties.setHighWatermark(3);
+        properties.setRefillBatchSize(2);
+
+        pool = new CardNumberPool(jdbcTemplate, transactionManager,
+                new SecureCardNumberGenerator(keyProvider, storage), properties, new SimpleMeterRegistry());
+
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class), eq(String.class)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), anyRowMapper()))
+                .thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.stop();
+    }
+
+    private static <T> RowMapper<T> anyRowMapper() {
+        return any();
+    }
+
+    @Test
+    @DisplayName("refill tops the BIN up to the high watermark and take restores a usable number")
+    void refillThenTake() {
+        when(jdbcTemplate.update(anyString(), any(SqlParameterSource.class))).thenReturn(1);
+
+        pool.refill(new CardNumberPool.Bin("4", 16));
+        pool.load();
+
+        assertEquals(3, pool.size("4", 16));
+
+        Optional<CardGenerationResult> taken = pool.take("4", 16);
+
+        assertTrue(taken.isPresent());
+        CardGenerationResult result = taken.get();
+        assertTrue(result.plainPan().startsWith("4"));
+        assertEquals(16, result.plainPan().length());
+        assertTrue(CardNumberGenerator.isValidLuhn(result.plainPan()));
+        assertNotNull(result.panCiphertext());
+        assertEquals(2, pool.size("4", 16));
+    }
+
+    @Test
+    @DisplayName("take skips numbers whose reservation row is already gone and reports an empty pool")
+    void takeSkipsNumbersTakenElsewhere() {
+        when(jdbcTemplate.update(startsWith("INSERT"), any(SqlParameterSource.class))).thenReturn(1);
+        when(jdbcTemplate.update(startsWith("DELETE"), any(SqlParameterSource.class))).thenReturn(0);
+
+        pool.refill(new CardNumberPool.Bin("4", 16));
+        pool.load();
+
+        assertTrue(pool.take("4", 16).isEmpty());
+        assertEquals(0, pool.size("4", 16));
+        assertTrue(pool.take("5", 16).isEmpty());
+    }
+
+    @Test
+    @DisplayName("take drops numbers encrypted under a key that is no longer current")
+    void takeDropsNumbersUnderRotatedKey() {
+        when(jdbcTemplate.update(anyString(), any(SqlParameterSource.class))).thenReturn(1);
+
+        pool.refill(new CardNumberPool.Bin("4", 16));
+        pool.load();
+        currentVersion = 2;
+
+        assertTrue(pool.take("4", 16).isEmpty());
+        assertEquals(0, pool.size("4", 16));
+        verify(jdbcTemplate, times(3)).update(startsWith("DELETE FROM card_number_pool WHERE pan_hash"),
+                any(SqlParameterSource.class));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.bankcards.service.pan;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PanHashIndexTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PanHashFilterProperties properties = new PanHashFilterProperties();
+    private PanHashIndex index;
+
+    @BeforeEach
+    void setUp() {
+        properties.setExpectedEntries(1000);
+        properties.setMaxAttempts(3);
+        index = new PanHashIndex(jdbcTemplate, transactionManager, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        index.stop();
+    }
+
+    @Test
+    @DisplayName("Accepts everything until the filter is loaded")
+    void acceptsBeforeLoad() {
+        assertFalse(index.isLoaded());
+        assertTrue(index.claim("existing", 1));
+    }
+
+    @Test
+    @DisplayName("Rejects hashes streamed from cards and handed out earlier, counting collisions and retries")
+    void rejectsKnownHashes() throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L);
+        ResultSet row = mock(ResultSet.class);
+        when(row.getString(1)).thenReturn("existing");
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        index.rebuild();
+
+        assertTrue(index.isLoaded());
+        assertFalse(index.claim("existing", 1));
+        assertTrue(index.claim("fresh", 1));
+        assertFalse(index.claim("fresh", 1));
+
+        assertEquals(2, meterRegistry.counter("card.number.collisions").count());
+        assertEquals(2, meterRegistry.counter("card.number.retries").count());
+
+        // the last allowed attempt is handed out and left to the unique index
+        assertTrue(index.claim("existing", 3));
+        assertEquals(3, meterRegistry.counter("card.number.collisions").count());
+        assertEquals(2, meterRegistry.counter("card.number.retries").count());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.bankcards.service.pan;
+
+import com.example.bankcards.repository.CardCacheEviction;
+import com.example.bankcards.util.AesGcmCipherEngine;
+import com.example.bankcards.util.PanCiphertext;
+import com.example.bankcards.util.pan_key.IPanKeyProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+class PanReencryptionJobTest {
+
+    private static final Map<Integer, AesGcmCipherEngine> ENGINES = Map.of(
+            1, new AesGcmCipherEngine("0123456789ABCDEF0123456789ABCDEF".getBytes(StandardCharsets.UTF_8)),
+            2, new AesGcmCipherEngine("FEDCBA9876543210FEDCBA9876543210".getBytes(StandardCharsets.UTF_8)));
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CardCacheEviction cardCacheEviction;
+
+    private final IPanKeyProvider keyProvider = new IPanKeyProvider() {
+        @Override
+        public int currentVersion() {
+            return 2;
+        }
+
+        @Override
+        public AesGcmCipherEngine engine(int version) {
+            AesGcmCipherEngine engine = ENGINES.get(version);
+            if (engine == null) {
+                throw new IllegalStateException("Unknown PAN key version " + version);
+            }
+            return engine;
+        }
+    };
+
+    @Test
+    @DisplayName("reencrypt: value moves to the target key version and still opens to the same PAN")
+    void reencryptMovesToTargetVersion() {
+        PanReencryptionJob job = new PanReencryptionJob(jdbcTemplate, transactionManager, keyProvider,
+                new PanReencryptionProperties(), cardCacheEviction, new SimpleMeterRegistry());
+        byte[] legacy = PanCiphertext.wrap(1, ENGINES.get(1).encrypt("4111111111111111".getBytes(StandardCharsets.UTF_8)));
+
+        byte[] rotated = job.reencrypt(legacy, 2);
+
+        assertEquals(2, PanCiphertext.keyVersion(rotated));
+        assertEquals("4111111111111111",
+                new String(PanCiphertext.open(ENGINES.get(2), rotated), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("reencrypt: values under unknown key versions are rejected")
+    void reencryptRejectsUnknownVersion() {
+        PanReencryptionJob job = new PanReencryptionJob(jdbcTemplate, transactionManager, keyProvider,
+                new PanReencryptionProperties(), cardCacheEviction, new SimpleMeterRegistry());
+        byte[] unknown = PanCiphertext.wrap(7, ENGINES.get(1).encrypt(new byte[]{1, 2, 3}));
+
+        assertThrows(IllegalStateException.class, () -> job.reencrypt(unknown, 2));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.exception.CardTransferException;
+import com.example.bankcards.repository.CardEntityRepository;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BatchingCardTransferExecutorTest {
+
+    @Mock
+    private CardEntityRepository cardEntityRepository;
+
+    @Mock
+    private CardBalanceShards cardBalanceShards;
+
+    @Mock
+    private LedgerWriter ledgerWriter;
+
+    @Mock
+    private CardBalanceCache cardBalanceCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BatchingCardTransferExecutor executor;
+
+    private final UUID ownerId = UUID.randomUUID();
+    private final CardEntity first = CardEntity.builder().id(1L).ownerId(ownerId).status(CardStatus.ACTIVE).balance(1_000L).build();
+    private final CardEntity second = CardEntity.builder().id(2L).ownerId(ownerId).status(CardStatus.ACTIVE).balance(1_000L).build();
+    private final CardEntity third = CardEntity.builder().id(3L).ownerId(ownerId).status(CardStatus.ACTIVE).balance(1_000L).build();
+
+    // cards locked by an open batch transaction, to catch two writers working on the same card
+    private final Set<Long> locked = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<Collection<Long>> lockedByThisWriter = new ThreadLocal<>();
+    private final AtomicBoolean overlapped = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        TransferProperties properties = new TransferProperties();
+        properties.getBatch().setPartitions(2);
+        properties.getBatch().setMaxLingerMs(5);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(cardEntityRepository.findAllByIdInForUpdate(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            for (Long id : ids) {
+                if (!locked.add(id)) {
+                    overlapped.set(true);
+                }
+            }
+            lockedByThisWriter.set(ids);
+            Thread.sleep(1);
+            List<CardEntity> cards = new ArrayList<>();
+            if (ids.contains(1L)) cards.add(first);
+            if (ids.contains(2L)) cards.add(second);
+            if (ids.contains(3L)) cards.add(third);
+            return cards;
+        });
+        doAnswer(invocation -> {
+            locked.removeAll(lockedByThisWriter.get());
+            return null;
+        }).when(transactionManager).commit(any());
+        executor = new BatchingCardTransferExecutor(cardEntityRepository, cardBalanceShards, ledgerWriter, cardBalanceCache,
+                transactionManager, properties);
+        executor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.stop();
+    }
+
+    @Test
+    @DisplayName("concurrent transfers are group committed and conserve the total balance")
+    void concurrentTransfersConserveBalance() throws Exception {
+        int transfers = 400;
+        ExecutorService callers = Executors.newFixedThreadPool(32);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < transfers; i++) {
+            boolean forward = i % 2 == 0;
+            futures.add(callers.submit(() -> forward
+                    ? executor.transfer(ownerId, 1L, 2L, 3L)
+                    : executor.transfer(ownerId, 2L, 1L, 3L)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        callers.shutdown();
+
+        assertThat(first.getBalance() + second.getBalance()).isEqualTo(2_000L);
+        assertThat(first.getBalance()).isEqualTo(1_000L);
+        assertThat(overlapped).isFalse();
+        verify(transactionManager, atMost(transfers - 1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("writers of different partitions never work on the same card at the same time")
+    void partitionsNeverShareACard() throws Exception {
+        assertThat(executor.partitionOf(1L)).isEqualTo(executor.partitionOf(3L));
+        assertThat(executor.partitionOf(2L)).isNotEqualTo(executor.partitionOf(3L));
+
+        long[][] pairs = {{1L, 3L}, {3L, 1L}, {2L, 3L}, {3L, 2L}, {1L, 2L}, {2L, 1L}};
+        ExecutorService callers = Executors.newFixedThreadPool(32);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            long[] pair = pairs[i % pairs.length];
+            futures.add(callers.submit(() -> executor.transfer(ownerId, pair[0], pair[1], 2L)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        callers.shutdown();
+
+        assertThat(overlapped).isFalse();
+        assertThat(first.getBalance() + second.getBalance() + third.getBalance()).isEqualTo(3_000L);
+    }
+
+    @Test
+    @DisplayName("a rejected transfer is reported to its caller only")
+    void rejectedTransferIsReportedToCaller() {
+        CardTransferException exception = assertThrows(CardTransferException.class,
+                () -> executor.transfer(ownerId, 1L, 2L, 5_000L));
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(exception.getMessage()).isEqualTo("Insufficient funds");
+        assertThat(executor.transfer(ownerId, 1L, 2L, 10L).getFromBalance()).isEqualTo(990L);
+    }
+}
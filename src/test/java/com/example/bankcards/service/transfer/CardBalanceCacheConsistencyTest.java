@@ -0,0 +1,130 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.BenchmarkApplication;
+import com.example.bankcards.dto.response.CardBalanceResponseDto;
+import com.example.bankcards.dto.response.CardTransferResponseDto;
+import com.example.bankcards.security.BankUserDetails;
+import com.example.bankcards.service.IUserCardService;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Transfers through the configured executor, after-commit cache updates included, interleaved
+ * with {@code getBalance} calls. Senders only ever lose money and receivers only ever gain it, so
+ * a balance served after a transfer has returned must be at most its {@code fromBalance} for the
+ * sender and at least its {@code toBalance} for the receiver. This is the end-to-end counterpart
+ * of {@code CardBalanceCacheTest.interleavedTransfersAndReads}, which checks the same guarantee
+ * in every build without a database. Needs {@code BENCH_DB_URL}, see {@link BenchmarkApplication}.
+ */
+@EnabledIfEnvironmentVariable(named = "BENCH_DB_URL", matches = ".+")
+class CardBalanceCacheConsistencyTest {
+
+    private static final int SENDERS = 4;
+    private static final int RECEIVERS = 4;
+    private static final long INITIAL_BALANCE = 1_000_000L;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"single-statement", "locking", "batched"})
+    @DisplayName("getBalance never serves a balance older than an acknowledged transfer and ends up equal to the database")
+    void servesAcknowledgedBalances(String mode) throws Exception {
+        try (ConfigurableApplicationContext context = BenchmarkApplication.start("bankcards.transfer.mode=" + mode)) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            ICardTransferExecutor executor = context.getBean(ICardTransferExecutor.class);
+            IUserCardService userCardService = context.getBean(IUserCardService.class);
+            CardBalanceCache cardBalanceCache = context.getBean(CardBalanceCache.class);
+
+            UUID ownerId = BenchmarkApplication.seedClient(jdbcTemplate, SENDERS + RECEIVERS, INITIAL_BALANCE);
+            List<Long> cards = BenchmarkApplication.cardIds(jdbcTemplate, ownerId);
+            BankUserDetails user = new BankUserDetails("bench-" + ownerId, "x",
+                    AuthorityUtils.createAuthorityList("USER"), ownerId);
+
+            // per card: the lowest acknowledged fromBalance of a sender, the highest toBalance of a receiver
+            AtomicLongArray acknowledged = new AtomicLongArray(cards.size());
+            for (int i = 0; i < cards.size(); i++) {
+                acknowledged.set(i, INITIAL_BALANCE);
+            }
+            AtomicBoolean transferring = new AtomicBoolean(true);
+            AtomicLong hits = new AtomicLong();
+
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<?>> writers = new ArrayList<>();
+                for (int w = 0; w < 4; w++) {
+                    writers.add(pool.submit(() -> {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < 250; i++) {
+                            int from = random.nextInt(SENDERS);
+                            int to = SENDERS + random.nextInt(RECEIVERS);
+                            CardTransferResponseDto response = executor.transfer(ownerId, cards.get(from), cards.get(to), 1L);
+                            acknowledged.accumulateAndGet(from, response.getFromBalance(), Math::min);
+                            acknowledged.accumulateAndGet(to, response.getToBalance(), Math::max);
+                        }
+                    }));
+                }
+                List<Future<?>> readers = new ArrayList<>();
+                for (int r = 0; r < 4; r++) {
+                    readers.add(pool.submit(() -> {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        while (transferring.get()) {
+                            int card = random.nextInt(cards.size());
+                            long floor = acknowledged.get(card);
+                            boolean cached = cardBalanceCache.balance(cards.get(card), ownerId) != CardBalanceCache.MISS;
+                            ResponseEntity<?> response = userCardService.getBalance(cards.get(card), user);
+                            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                            long balance = ((CardBalanceResponseDto) response.getBody()).getBalance();
+                            if (card < SENDERS) {
+                                assertThat(balance).as("sender %d", cards.get(card)).isLessThanOrEqualTo(floor);
+                            } else {
+                                assertThat(balance).as("receiver %d", cards.get(card)).isGreaterThanOrEqualTo(floor);
+                            }
+                            if (cached) {
+                                hits.incrementAndGet();
+                            }
+                        }
+                    }));
+                }
+
+                for (Future<?> writer : writers) {
+                    writer.get(5, TimeUnit.MINUTES);
+                }
+                transferring.set(false);
+                for (Future<?> reader : readers) {
+                    reader.get(1, TimeUnit.MINUTES);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+
+            assertThat(hits.get()).isPositive();
+            long total = 0;
+            for (Long cardId : cards) {
+                long balance = jdbcTemplate.queryForObject("SELECT balance FROM cards WHERE id = ?", Long.class, cardId);
+                assertThat(cardBalanceCache.balance(cardId, ownerId)).as("card %d", cardId).isEqualTo(balance);
+                total += balance;
+            }
+            assertThat(total).isEqualTo((SENDERS + RECEIVERS) * INITIAL_BALANCE);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.BenchmarkApplication;
+import com.example.bankcards.dto.response.CardTransferResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Credit throughput of one hot card: every thread transfers from a card of its own to the same
+ * target, so without sub-balances all credits queue on the target's row lock. {@code shards} is
+ * the target's sub-balance count, 0 meaning unsharded; throughput should grow with it until the
+ * database runs out of cores. Needs {@code BENCH_DB_URL}, see {@link BenchmarkApplication}.
+ * <p>
+ * {@code mvn -P benchmark test -Djmh.args="CardCreditBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+public class CardCreditBenchmark {
+
+    private static final int SOURCES = 64;
+
+    @Param({"0", "4", "16"})
+    private int shards;
+
+    @Param({"single-statement", "locking", "batched"})
+    private String mode;
+
+    private ConfigurableApplicationContext context;
+    private ICardTransferExecutor executor;
+    private UUID ownerId;
+    private Long target;
+    private List<Long> sources;
+    private final AtomicInteger nextSource = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("bankcards.transfer.mode=" + mode);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        ownerId = BenchmarkApplication.seedClient(jdbcTemplate, SOURCES + 1, 1_000_000_000L);
+        List<Long> cards = BenchmarkApplication.cardIds(jdbcTemplate, ownerId);
+        target = cards.get(0);
+        sources = cards.subList(1, cards.size());
+        if (shards > 0) {
+            context.getBean(CardBalanceShards.class).reshard(target, shards);
+        }
+        executor = context.getBean(ICardTransferExecutor.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Source {
+
+        private Long cardId;
+
+        @Setup(Level.Trial)
+        public void setUp(CardCreditBenchmark benchmark) {
+            cardId = benchmark.sources.get(benchmark.nextSource.getAndIncrement() % SOURCES);
+        }
+    }
+
+    @Benchmark
+    public CardTransferResponseDto credit(Source source) {
+        return executor.transfer(ownerId, source.cardId, target, 1L);
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.response.CardTransferResponseDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.exception.CardTransferException;
+import com.example.bankcards.repository.CardEntityRepository;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LockingCardTransferExecutorTest {
+
+    @Mock
+    private CardEntityRepository cardEntityRepository;
+
+    @Mock
+    private CardBalanceShards cardBalanceShards;
+
+    @Mock
+    private LedgerWriter ledgerWriter;
+
+    @Mock
+    private CardBalanceCache cardBalanceCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LockingCardTransferExecutor executor;
+
+    private final UUID ownerId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        TransferProperties properties = new TransferProperties();
+        properties.setRetryBackoffMs(0);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        executor = new LockingCardTransferExecutor(cardEntityRepository, cardBalanceShards, ledgerWriter, cardBalanceCache,
+                transactionManager, properties);
+    }
+
+    private CardEntity card(Long id, long balance, CardStatus status) {
+        return CardEntity.builder().id(id).ownerId(ownerId).status(status).balance(balance).build();
+    }
+
+    @Test
+    @DisplayName("transfer locks cards in ascending id order and moves the amount")
+    void transferLocksInIdOrder() {
+        CardEntity from = card(9L, 100L, CardStatus.ACTIVE);
+        CardEntity to = card(3L, 5L, CardStatus.ACTIVE);
+        when(cardEntityRepository.findByIdAndOwnerIdForUpdate(3L, ownerId)).thenReturn(Optional.of(to));
+        when(cardEntityRepository.findByIdAndOwnerIdForUpdate(9L, ownerId)).thenReturn(Optional.of(from));
+
+        CardTransferResponseDto result = executor.transfer(ownerId, 9L, 3L, 40L);
+
+        InOrder inOrder = inOrder(cardEntityRepository);
+        inOrder.verify(cardEntityRepository).findByIdAndOwnerIdForUpdate(3L, ownerId);
+        inOrder.verify(cardEntityRepository).findByIdAndOwnerIdForUpdate(9L, ownerId);
+        assertThat(result.getFromBalance()).isEqualTo(60L);
+        assertThat(result.getToBalance()).isEqualTo(45L);
+        verify(ledgerWriter).recordTransfers(List.of(new LedgerWriter.Posting(result.getTransferId(), 9L, 3L, 40L)));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("transfer rolls back with insufficient funds error")
+    void transferRejectsInsufficientFunds() {
+        when(cardEntityRepository.findByIdAndOwnerIdForUpdate(1L, ownerId)).thenReturn(Optional.of(card(1L, 10L, CardStatus.ACTIVE)));
+        when(cardEntityRepository.findByIdAndOwnerIdForUpdate(2L, ownerId)).thenReturn(Optional.of(card(2L, 0L, CardStatus.ACTIVE)));
+
+        CardTransferException exception = assertThrows(CardTransferException.class,
+                () -> executor.transfer(ownerId, 1L, 2L, 11L));
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(exception.getMessage()).isEqualTo("Insufficient funds");
+        verifyNoInteractions(ledgerWriter);
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    @DisplayName("transfer retries when a row lock cannot be acquired")
+    void transferRetriesOnLockFailure() {
+        when(cardEntityRepository.findByIdAndOwnerIdForUpdate(1L, ownerId))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"))
+                .thenReturn(Optional.of(card(1L, 10L, CardStatus.ACTIVE)));
+        when(cardEntityRepository.findByIdAndOwnerIdForUpdate(2L, ownerId)).thenReturn(Optional.of(card(2L, 0L, CardStatus.ACTIVE)));
+
+        CardTransferResponseDto result = executor.transfer(ownerId, 1L, 2L, 10L);
+
+        assertThat(result.getFromBalance()).isZero();
+        assertThat(result.getToBalance()).isEqualTo(10L);
+        verify(cardEntityRepository, times(2)).findByIdAndOwnerIdForUpdate(1L, ownerId);
+    }
+
+    @Test
+    @DisplayName("transfer between the same card is rejected")
+    void transferRejectsSameCard() {
+        CardTransferException exception = assertThrows(CardTransferException.class,
+                () -> executor.transfer(ownerId, 5L, 5L, 1L));
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(cardEntityRepository);
+    }
+
+    @Test
+    @DisplayName("transfer to a sharded card share-locks it and credits a sub-balance")
+    void transferCreditsShardedDestination() {
+        CardEntity from = card(1L, 50L, CardStatus.ACTIVE);
+        CardEntity to = card(2L, 0L, CardStatus.ACTIVE);
+        to.setBalanceShards(4);
+        when(cardEntityRepository.findShardedIdsIn(List.of(2L))).thenReturn(List.of(2L));
+        when(cardEntityRepository.findByIdAndOwnerIdForUpdate(1L, ownerId)).thenReturn(Optional.of(from));
+        when(cardEntityRepository.findByIdAndOwnerIdForShare(2L, ownerId)).thenReturn(Optional.of(to));
+        when(cardBalanceShards.total(2L)).thenReturn(120L);
+
+        CardTransferResponseDto result = executor.transfer(ownerId, 1L, 2L, 20L);
+
+        verify(cardBalanceShards).credit(2L, 4, 20L);
+        assertThat(result.getFromBalance()).isEqualTo(30L);
+        assertThat(result.getToBalance()).isEqualTo(120L);
+        assertThat(to.getBalance()).isZero();
+    }
+}
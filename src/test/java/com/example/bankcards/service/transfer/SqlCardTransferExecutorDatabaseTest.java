@@ -0,0 +1,175 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.BenchmarkApplication;
+import com.example.bankcards.dto.response.CardTransferResponseDto;
+import com.example.bankcards.exception.CardTransferException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs the single-statement transfer against PostgreSQL: the guarded update of both balances,
+ * the ledger entries it posts, the rejections mapped from the locked rows, and the id-ordered
+ * row locks under opposing concurrent transfers. {@link SqlCardTransferExecutorTest} covers the
+ * mapping with a mocked template. Needs {@code BENCH_DB_URL}, see {@link BenchmarkApplication}.
+ */
+@EnabledIfEnvironmentVariable(named = "BENCH_DB_URL", matches = ".+")
+class SqlCardTransferExecutorDatabaseTest {
+
+    private static ConfigurableApplicationContext context;
+    private static JdbcTemplate jdbcTemplate;
+    private static ICardTransferExecutor executor;
+
+    private UUID ownerId;
+    private Long fromCardId;
+    private Long toCardId;
+
+    @BeforeAll
+    static void start() {
+        context = BenchmarkApplication.start("bankcards.transfer.mode=single-statement");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        executor = context.getBean(ICardTransferExecutor.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+        ownerId = BenchmarkApplication.seedClient(jdbcTemplate, 2, 1_000L);
+        List<Long> cards = BenchmarkApplication.cardIds(jdbcTemplate, ownerId);
+        fromCardId = cards.get(0);
+        toCardId = cards.get(1);
+    }
+
+    @Test
+    @DisplayName("transfer moves the amount, bumps both versions and posts a debit and a credit")
+    void transferUpdatesBalancesAndLedger() {
+        assertThat(executor).isInstanceOf(SqlCardTransferExecutor.class);
+        long fromVersion = version(fromCardId);
+        long toVersion = version(toCardId);
+
+        CardTransferResponseDto response = executor.transfer(ownerId, fromCardId, toCardId, 300L);
+
+        assertThat(response.getFromBalance()).isEqualTo(700L);
+        assertThat(response.getToBalance()).isEqualTo(1_300L);
+        assertThat(balance(fromCardId)).isEqualTo(700L);
+        assertThat(balance(toCardId)).isEqualTo(1_300L);
+        assertThat(version(fromCardId)).isEqualTo(fromVersion + 1);
+        assertThat(version(toCardId)).isEqualTo(toVersion + 1);
+        List<Map<String, Object>> ledger = jdbcTemplate.queryForList(
+                "SELECT card_id, entry_type, amount FROM ledger_entries WHERE transfer_id = ? ORDER BY amount",
+                response.getTransferId());
+        assertThat(ledger).containsExactly(
+                Map.of("card_id", fromCardId, "entry_type", "DEBIT", "amount", -300L),
+                Map.of("card_id", toCardId, "entry_type", "CREDIT", "amount", 300L));
+    }
+
+    @Test
+    @DisplayName("transfer beyond the source balance is rejected and changes nothing")
+    void insufficientFundsIsRejected() {
+        CardTransferException exception = assertThrows(CardTransferException.class,
+                () -> executor.transfer(ownerId, fromCardId, toCardId, 1_001L));
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(exception.getMessage()).isEqualTo("Insufficient funds");
+        assertUnchanged();
+    }
+
+    @Test
+    @DisplayName("transfer from or to another client's card is reported as not found and changes nothing")
+    void foreignCardsAreRejected() {
+        UUID otherOwner = BenchmarkApplication.seedClient(jdbcTemplate, 1, 1_000L);
+        Long foreignCardId = BenchmarkApplication.cardIds(jdbcTemplate, otherOwner).get(0);
+
+        CardTransferException wrongOwner = assertThrows(CardTransferException.class,
+                () -> executor.transfer(otherOwner, fromCardId, toCardId, 10L));
+        CardTransferException foreignDestination = assertThrows(CardTransferException.class,
+                () -> executor.transfer(ownerId, fromCardId, foreignCardId, 10L));
+
+        assertThat(wrongOwner.getStatus()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(wrongOwner.getMessage()).isEqualTo("Source card not found");
+        assertThat(foreignDestination.getStatus()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(foreignDestination.getMessage()).isEqualTo("Destination card not found");
+        assertThat(balance(foreignCardId)).isEqualTo(1_000L);
+        assertUnchanged();
+    }
+
+    @Test
+    @DisplayName("transfer touching a blocked card is rejected and changes nothing")
+    void blockedCardIsRejected() {
+        jdbcTemplate.update("UPDATE cards SET status = 'BLOCKED' WHERE id = ?", toCardId);
+
+        CardTransferException exception = assertThrows(CardTransferException.class,
+                () -> executor.transfer(ownerId, fromCardId, toCardId, 10L));
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(exception.getMessage()).isEqualTo("Destination card is blocked");
+        assertUnchanged();
+    }
+
+    @Test
+    @DisplayName("opposing concurrent transfers lock in id order: none deadlocks and the total is preserved")
+    void opposingTransfersDoNotDeadlock() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> transfers = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                boolean forward = i % 2 == 0;
+                transfers.add(pool.submit(() -> forward
+                        ? executor.transfer(ownerId, fromCardId, toCardId, 1L)
+                        : executor.transfer(ownerId, toCardId, fromCardId, 1L)));
+            }
+            for (Future<?> transfer : transfers) {
+                transfer.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(balance(fromCardId)).isEqualTo(1_000L);
+        assertThat(balance(toCardId)).isEqualTo(1_000L);
+        assertThat(ledgerEntries()).isEqualTo(400);
+    }
+
+    private void assertUnchanged() {
+        assertThat(balance(fromCardId)).isEqualTo(1_000L);
+        assertThat(balance(toCardId)).isEqualTo(1_000L);
+        assertThat(ledgerEntries()).isZero();
+    }
+
+    private long balance(Long cardId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM cards WHERE id = ?", Long.class, cardId);
+    }
+
+    private long version(Long cardId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM cards WHERE id = ?", Long.class, cardId);
+    }
+
+    private int ledgerEntries() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM ledger_entries WHERE card_id IN (?, ?)",
+                Integer.class, fromCardId, toCardId);
+    }
+}
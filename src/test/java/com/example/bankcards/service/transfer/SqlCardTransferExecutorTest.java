@@ -0,0 +1,137 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.response.CardTransferResponseDto;
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.exception.CardTransferException;
+import com.example.bankcards.repository.CardCacheEviction;
+import com.example.bankcards.service.cache.CardBalanceCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SqlCardTransferExecutorTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private LockingCardTransferExecutor lockingExecutor;
+
+    @Mock
+    private CardCacheEviction cardCacheEviction;
+
+    @Mock
+    private CardBalanceCache cardBalanceCache;
+
+    private SqlCardTransferExecutor executor;
+
+    private final UUID ownerId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        executor = new SqlCardTransferExecutor(jdbcTemplate, lockingExecutor, cardCacheEviction, cardBalanceCache,
+                new TransferProperties());
+    }
+
+    private void returnRows(Object[]... rows) {
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), anyRowMapper()))
+                .thenAnswer(invocation -> {
+                    RowMapper<?> mapper = invocation.getArgument(2);
+                    List<Object> mapped = new ArrayList<>();
+                    for (Object[] row : rows) {
+                        mapped.add(mapper.mapRow(resultSet(row), 0));
+                    }
+                    return mapped;
+                });
+    }
+
+    private static <T> RowMapper<T> anyRowMapper() {
+        return any();
+    }
+
+    private ResultSet resultSet(Object[] row) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn((Long) row[0]);
+        when(rs.getObject("owner_id", UUID.class)).thenReturn((UUID) row[1]);
+        when(rs.getString("status")).thenReturn((String) row[2]);
+        when(rs.getLong("balance")).thenReturn((Long) row[3]);
+        when(rs.getInt("balance_shards")).thenReturn((Integer) row[4]);
+        when(rs.getObject("new_balance", Long.class)).thenReturn((Long) row[5]);
+        if (row.length > 6) {
+            when(rs.getObject("new_version", Long.class)).thenReturn((Long) row[6]);
+        }
+        return rs;
+    }
+
+    @Test
+    @DisplayName("transfer returns balances produced by the single statement")
+    void transferReturnsUpdatedBalances() {
+        returnRows(new Object[]{1L, ownerId, "ACTIVE", 100L, 0, 70L, 4L},
+                new Object[]{2L, ownerId, "ACTIVE", 0L, 0, 30L, 9L});
+
+        CardTransferResponseDto result = executor.transfer(ownerId, 1L, 2L, 30L);
+
+        assertThat(result.getFromBalance()).isEqualTo(70L);
+        assertThat(result.getToBalance()).isEqualTo(30L);
+        verify(jdbcTemplate, times(1)).query(anyString(), any(SqlParameterSource.class), anyRowMapper());
+        verify(cardBalanceCache).recordAfterCommit(1L, ownerId, 70L, CardStatus.ACTIVE, false, 4L);
+        verify(cardBalanceCache).recordAfterCommit(2L, ownerId, 30L, CardStatus.ACTIVE, false, 9L);
+    }
+
+    @Test
+    @DisplayName("transfer maps a rejected statement to the matching error")
+    void transferMapsRejectionReasons() {
+        returnRows(new Object[]{1L, ownerId, "ACTIVE", 10L, 0, null},
+                new Object[]{2L, ownerId, "BLOCKED", 0L, 0, null});
+
+        CardTransferException exception = assertThrows(CardTransferException.class,
+                () -> executor.transfer(ownerId, 1L, 2L, 30L));
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(exception.getMessage()).isEqualTo("Destination card is blocked");
+    }
+
+    @Test
+    @DisplayName("transfer reports a foreign source card as not found")
+    void transferHidesForeignCards() {
+        returnRows(new Object[]{1L, UUID.randomUUID(), "ACTIVE", 100L, 0, null},
+                new Object[]{2L, ownerId, "ACTIVE", 0L, 0, null});
+
+        CardTransferException exception = assertThrows(CardTransferException.class,
+                () -> executor.transfer(ownerId, 1L, 2L, 30L));
+
+        assertThat(exception.getStatus()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(exception.getMessage()).isEqualTo("Source card not found");
+    }
+
+    @Test
+    @DisplayName("transfer touching a sharded card is delegated to the locking executor")
+    void transferDelegatesShardedCards() {
+        returnRows(new Object[]{1L, ownerId, "ACTIVE", 100L, 0, null},
+                new Object[]{2L, ownerId, "ACTIVE", 0L, 8, null});
+        CardTransferResponseDto delegated = CardTransferResponseDto.builder().fromCardId(1L).toCardId(2L).build();
+        when(lockingExecutor.transfer(ownerId, 1L, 2L, 30L)).thenReturn(delegated);
+
+        assertThat(executor.transfer(ownerId, 1L, 2L, 30L)).isSameAs(delegated);
+    }
+}
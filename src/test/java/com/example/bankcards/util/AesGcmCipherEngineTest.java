@@ -0,0 +1,80 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AesGcmCipherEngineTest {
+
+    private static final byte[] KEY = "0123456789ABCDEF0123456789ABCDEF".getBytes(StandardCharsets.UTF_8);
+
+    private final AesGcmCipherEngine engine = new AesGcmCipherEngine(KEY);
+
+    @Test
+    @DisplayName("Text form is compatible with AesGcmAttributeConverter")
+    void textFormRoundTripsThroughConverter() {
+        AesGcmAttributeConverter converter = new AesGcmAttributeConverter(engine);
+
+        String encrypted = engine.encryptToString("4111111111111111");
+
+        assertEquals("4111111111111111", converter.convertToEntityAttribute(encrypted));
+        assertEquals("5555444433332222",
+                engine.decryptFromString(converter.convertToDatabaseColumn("5555444433332222")));
+    }
+
+    @Test
+    @DisplayName("Binary form carries IV and tag and round trips")
+    void binaryRoundTrip() {
+        byte[] sealed = engine.encrypt("4111111111111111".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(AesGcmCipherEngine.IV_LENGTH + 16 + 16, sealed.length);
+        assertEquals("4111111111111111", new String(engine.decrypt(sealed), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Tampered ciphertext fails authentication")
+    void tamperedCiphertextIsRejected() {
+        byte[] sealed = engine.encrypt("4111111111111111".getBytes(StandardCharsets.UTF_8));
+        sealed[sealed.length - 1] ^= 1;
+
+        assertThrows(IllegalStateException.class, () -> engine.decrypt(sealed));
+    }
+
+    @Test
+    @DisplayName("Malformed text values are rejected with IllegalArgumentException")
+    void malformedTextIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> engine.decryptFromString("no-separator"));
+        assertThrows(IllegalArgumentException.class, () -> engine.decryptFromString("a:b:c"));
+        assertThrows(IllegalArgumentException.class, () -> engine.decryptFromString("!!!:AAAA"));
+    }
+
+    @Test
+    @DisplayName("Bulk operations are safe to run from several threads at once")
+    void bulkOperationsAcrossThreads() throws Exception {
+        List<String> pans = IntStream.range(0, 200)
+                .mapToObj(i -> String.format("4000%012d", i))
+                .toList();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> engine.decryptAllFromStrings(engine.encryptAllToStrings(pans))));
+            }
+            for (Future<List<String>> result : results) {
+                assertEquals(pans, result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapBalanceTableTest {
+
+    @Test
+    @DisplayName("A written entry is read back field by field; unknown keys are absent")
+    void roundTrip() {
+        OffHeapBalanceTable table = new OffHeapBalanceTable(1024);
+        OffHeapBalanceTable.Entry entry = new OffHeapBalanceTable.Entry();
+
+        assertTrue(table.put(42L, 1L, 2L, 500L, 1, 3L, 99L));
+
+        assertTrue(table.read(42L, entry));
+        assertEquals(1L, entry.ownerMostSigBits);
+        assertEquals(2L, entry.ownerLeastSigBits);
+        assertEquals(500L, entry.balance);
+        assertEquals(1, entry.status);
+        assertEquals(3L, entry.version);
+        assertEquals(99L, entry.stamp);
+        assertFalse(table.read(43L, entry));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    @DisplayName("An older version never replaces a newer one; an equal version does")
+    void versionGuard() {
+        OffHeapBalanceTable table = new OffHeapBalanceTable(1024);
+        OffHeapBalanceTable.Entry entry = new OffHeapBalanceTable.Entry();
+
+        table.put(7L, 0L, 0L, 200L, 1, 5L, 1L);
+        table.put(7L, 0L, 0L, 100L, 1, 4L, 2L);
+        table.read(7L, entry);
+        assertEquals(200L, entry.balance);
+        assertEquals(1L, entry.stamp);
+
+        table.put(7L, 0L, 0L, 200L, 1, 5L, 3L);
+        table.read(7L, entry);
+        assertEquals(3L, entry.stamp);
+    }
+
+    @Test
+    @DisplayName("Keys beyond the table's capacity are refused")
+    void refusesKeysWhenFull() {
+        OffHeapBalanceTable table = new OffHeapBalanceTable(1);
+        assertEquals(OffHeapBalanceTable.MAX_PROBES, table.capacity());
+
+        for (long key = 1; key <= table.capacity(); key++) {
+            assertTrue(table.put(key, 0L, 0L, key, 1, 0L, 0L));
+        }
+
+        assertFalse(table.put(table.capacity() + 1L, 0L, 0L, 0L, 1, 0L, 0L));
+        assertEquals(table.capacity(), table.size());
+    }
+
+    @Test
+    @DisplayName("Once no slot is free, an entry older than maxAge gives its slot to a new key")
+    void takesOverExpiredSlots() {
+        OffHeapBalanceTable table = new OffHeapBalanceTable(1, 100L);
+        OffHeapBalanceTable.Entry entry = new OffHeapBalanceTable.Entry();
+        for (long key = 1; key <= table.capacity(); key++) {
+            assertTrue(table.put(key, 0L, 0L, key, 1, 0L, key == 5 ? 0L : 50L));
+        }
+
+        assertFalse(table.put(100L, 0L, 0L, 100L, 1, 0L, 99L));
+        assertTrue(table.put(100L, 0L, 0L, 100L, 1, 0L, 100L));
+
+        assertTrue(table.read(100L, entry));
+        assertEquals(100L, entry.balance);
+        assertFalse(table.read(5L, entry));
+        assertTrue(table.read(6L, entry));
+        assertEquals(table.capacity(), table.size());
+
+        assertTrue(table.put(100L, 0L, 0L, 101L, 1, 1L, 101L));
+        table.read(100L, entry);
+        assertEquals(101L, entry.balance);
+        assertFalse(table.put(200L, 0L, 0L, 200L, 1, 0L, 149L));
+    }
+
+    // Measured here rather than on CardBalanceCache: service tests spy on the cache, and once Mockito's
+    // inline mock maker has instrumented a class, every call on it allocates, mocked instance or not.
+    @Test
+    @DisplayName("A read of a present key allocates nothing on the heap")
+    void readAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return;
+        }
+        OffHeapBalanceTable table = new OffHeapBalanceTable(64);
+        OffHeapBalanceTable.Entry entry = new OffHeapBalanceTable.Entry();
+        table.put(1L, 1L, 2L, 100L, 1, 0L, 0L);
+        long threadId = Thread.currentThread().getId();
+        long sum = 0;
+        // the best of several rounds, since the first ones may still run before the JIT has compiled read
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 20 && allocated >= 16 * 1024; round++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 100_000; i++) {
+                if (table.read(1L, entry)) {
+                    sum += entry.balance;
+                }
+            }
+            allocated = Math.min(allocated, threads.getThreadAllocatedBytes(threadId) - before);
+        }
+
+        assertEquals(0L, sum % 100L);
+        assertTrue(allocated < 16 * 1024, allocated + " bytes allocated");
+    }
+
+    @Test
+    @DisplayName("Concurrent readers never see a torn entry or a version going backwards")
+    void concurrentWritesAndReads() throws Exception {
+        int keys = 4;
+        OffHeapBalanceTable table = new OffHeapBalanceTable(64);
+        AtomicLongArray versions = new AtomicLongArray(keys + 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        int key = 1 + ThreadLocalRandom.current().nextInt(keys);
+                        long version = versions.incrementAndGet(key);
+                        table.put(key, version, ~version, version * 3, (int) version, version, -version);
+                    }
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 4; r++) {
+                readers.add(pool.submit(() -> {
+                    OffHeapBalanceTable.Entry entry = new OffHeapBalanceTable.Entry();
+                    long[] lastSeen = new long[keys + 1];
+                    while (writing.get()) {
+                        int key = 1 + ThreadLocalRandom.current().nextInt(keys);
+                        if (!table.read(key, entry)) {
+                            continue;
+                        }
+                        long version = entry.version;
+                        assertEquals(version, entry.ownerMostSigBits);
+                        assertEquals(~version, entry.ownerLeastSigBits);
+                        assertEquals(version * 3, entry.balance);
+                        assertEquals((int) version, entry.status);
+                        assertEquals(-version, entry.stamp);
+                        assertTrue(version >= lastSeen[key], "version went backwards for key " + key);
+                        lastSeen[key] = version;
+                    }
+                }));
+            }
+
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        OffHeapBalanceTable.Entry entry = new OffHeapBalanceTable.Entry();
+        for (int key = 1; key <= keys; key++) {
+            assertTrue(table.read(key, entry));
+            assertEquals(versions.get(key), entry.version);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.bankcards.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PAN encryption before and after {@link AesGcmCipherEngine}: the legacy converter looked up a
+ * {@link Cipher} per call and split the stored text with a regex, the engine reuses a cipher per
+ * thread and parses the text in place. {@code single*} measures one value, {@code bulk*} a page of
+ * {@code batchSize} values as a card list decrypts it.
+ * <p>
+ * {@code mvn -P benchmark test -Djmh.args="PanCipherBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PanCipherBenchmark {
+
+    private static final String PAN = "4276380012345678";
+
+    @Param({"20", "500"})
+    private int batchSize;
+
+    private LegacyConverter legacy;
+    private AesGcmCipherEngine engine;
+    private String legacyCipherText;
+    private String engineCipherText;
+    private List<String> pans;
+    private List<String> legacyCipherTexts;
+    private List<String> engineCipherTexts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        legacy = new LegacyConverter(key);
+        engine = new AesGcmCipherEngine(key);
+
+        legacyCipherText = legacy.encrypt(PAN);
+        engineCipherText = engine.encryptToString(PAN);
+        pans = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            pans.add(String.format("4276%012d", i));
+        }
+        legacyCipherTexts = pans.stream().map(legacy::encrypt).toList();
+        engineCipherTexts = engine.encryptAllToStrings(pans);
+    }
+
+    @Benchmark
+    public String singleEncryptLegacy() {
+        return legacy.encrypt(PAN);
+    }
+
+    @Benchmark
+    public String singleEncryptEngine() {
+        return engine.encryptToString(PAN);
+    }
+
+    @Benchmark
+    public String singleDecryptLegacy() {
+        return legacy.decrypt(legacyCipherText);
+    }
+
+    @Benchmark
+    public String singleDecryptEngine() {
+        return engine.decryptFromString(engineCipherText);
+    }
+
+    @Benchmark
+    public List<String> bulkEncryptLegacy() {
+        List<String> result = new ArrayList<>(pans.size());
+        for (String pan : pans) {
+            result.add(legacy.encrypt(pan));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<String> bulkEncryptEngine() {
+        return engine.encryptAllToStrings(pans);
+    }
+
+    @Benchmark
+    public List<String> bulkDecryptLegacy() {
+        List<String> result = new ArrayList<>(legacyCipherTexts.size());
+        for (String value : legacyCipherTexts) {
+            result.add(legacy.decrypt(value));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<String> bulkDecryptEngine() {
+        return engine.decryptAllFromStrings(engineCipherTexts);
+    }
+
+    /**
+     * The converter as it was before the engine, kept here as the baseline.
+     */
+    private static final class LegacyConverter {
+
+        private static final int IV_LENGTH = 12;
+        private static final int TAG_LENGTH_BIT = 128;
+        private static final SecureRandom RANDOM = new SecureRandom();
+
+        private final SecretKey secretKey;
+
+        LegacyConverter(byte[] keyBytes) {
+            this.secretKey = new SecretKeySpec(keyBytes, "AES");
+        }
+
+        String encrypt(String attribute) {
+            try {
+                byte[] iv = new byte[IV_LENGTH];
+                RANDOM.nextBytes(iv);
+
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BIT, iv));
+                byte[] cipherText = cipher.doFinal(attribute.getBytes(StandardCharsets.UTF_8));
+
+                return Base64.getEncoder().encodeToString(iv) + ":" + Base64.getEncoder().encodeToString(cipherText);
+            } catch (Exception e) {
+                throw new RuntimeException("Error encrypting attribute", e);
+            }
+        }
+
+        String decrypt(String dbData) {
+            String[] parts = dbData.split(":");
+            try {
+                byte[] iv = Base64.getDecoder().decode(parts[0]);
+                byte[] cipherText = Base64.getDecoder().decode(parts[1]);
+
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BIT, iv));
+                return new String(cipher.doFinal(cipherText), StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                throw new RuntimeException("Error decrypting attribute", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PanHashBloomFilterTest {
+
+    @Test
+    @DisplayName("Every inserted hash is reported as present")
+    void noFalseNegatives() throws NoSuchAlgorithmException {
+        PanHashBloomFilter filter = new PanHashBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(sha256("card-" + i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(sha256("card-" + i)));
+        }
+        assertEquals(10_000, filter.insertions());
+    }
+
+    @Test
+    @DisplayName("False-positive rate stays close to the configured one at capacity")
+    void falsePositiveRateNearTarget() throws NoSuchAlgorithmException {
+        PanHashBloomFilter filter = new PanHashBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(sha256("card-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 20_000; i++) {
+            if (filter.mightContain(sha256("other-" + i))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 20_000 * 0.02, "false positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Rejects nonsensical sizing")
+    void rejectsInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new PanHashBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new PanHashBloomFilter(100, 1.0));
+    }
+
+    private static String sha256(String value) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+}
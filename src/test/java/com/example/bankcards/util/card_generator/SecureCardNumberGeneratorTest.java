@@ -1,6 +1,8 @@
 package com.example.bankcards.util.card_generator;
 
 import com.example.bankcards.util.AesGcmAttributeConverter;
+import com.example.bankcards.util.AesGcmCipherEngine;
+import com.example.bankcards.util.PanCiphertext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -67,4 +69,22 @@ class SecureCardNumberGeneratorTest {
         MockEnvironment environment = new MockEnvironment();
         assertThrows(IllegalStateException.class, () -> new SecureCardNumberGenerator(environment));
     }
+
+    @Test
+    @DisplayName("Binary storage mode produces only the versioned bytea form")
+    void generateInBinaryMode() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setProperty("PAN_ENC_KEY_BASE64", BASE64_KEY);
+        PanStorageProperties properties = new PanStorageProperties();
+        properties.setStorage(PanStorageMode.BINARY);
+
+        CardGenerationResult result = new SecureCardNumberGenerator(environment, properties).generate();
+
+        assertNull(result.encryptedPan());
+        assertEquals(PanCiphertext.INITIAL_KEY_VERSION, PanCiphertext.keyVersion(result.panCiphertext()));
+        AesGcmCipherEngine engine = AesGcmCipherEngine.fromBase64Key(BASE64_KEY);
+        assertEquals(result.plainPan(),
+                new String(PanCiphertext.open(engine, result.panCiphertext()), StandardCharsets.UTF_8));
+        assertEquals(result.plainPan(), engine.decryptFromString(PanCiphertext.toText(result.panCiphertext())));
+    }
 }
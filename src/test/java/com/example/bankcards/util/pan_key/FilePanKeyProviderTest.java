@@ -0,0 +1,64 @@
+package com.example.bankcards.util.pan_key;
+
+import com.example.bankcards.util.AesGcmCipherEngine;
+import com.example.bankcards.util.PanCiphertext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilePanKeyProviderTest {
+
+    private static final String KEK = Base64.getEncoder()
+            .encodeToString("KEK-KEK-KEK-KEK-KEK-KEK-KEK-KEK-".getBytes(StandardCharsets.UTF_8));
+    private static final byte[] KEY_1 = "0123456789ABCDEF0123456789ABCDEF".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] KEY_2 = "FEDCBA9876543210FEDCBA9876543210".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Keyring keys are unwrapped with the KEK and opened by version")
+    void unwrapsVersionedKeys() throws IOException {
+        FilePanKeyProvider provider = new FilePanKeyProvider(writeKeyring("2"), KEK);
+
+        assertEquals(2, provider.currentVersion());
+        byte[] legacy = PanCiphertext.wrap(1, new AesGcmCipherEngine(KEY_1).encrypt(bytes("4111111111111111")));
+        assertEquals("4111111111111111", text(PanCiphertext.open(provider.engine(1), legacy)));
+
+        byte[] current = PanCiphertext.wrap(2, provider.currentEngine().encrypt(bytes("5555444433332222")));
+        assertEquals("5555444433332222", text(new AesGcmCipherEngine(KEY_2).decrypt(current, 1, current.length - 1)));
+        assertThrows(IllegalStateException.class, () -> provider.engine(3));
+    }
+
+    @Test
+    @DisplayName("Current version without a data key is rejected at startup")
+    void rejectsMissingCurrentKey() throws IOException {
+        Path keyring = writeKeyring("3");
+
+        assertThrows(IllegalStateException.class, () -> new FilePanKeyProvider(keyring, KEK));
+    }
+
+    private Path writeKeyring(String current) throws IOException {
+        Path keyring = directory.resolve("keyring.properties");
+        Files.writeString(keyring, "current=" + current + "\n"
+                + "key.1=" + FilePanKeyProvider.wrapDataKey(KEK, KEY_1) + "\n"
+                + "key.2=" + FilePanKeyProvider.wrapDataKey(KEK, KEY_2) + "\n");
+        return keyring;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}